@@ -12,4 +12,6 @@ public interface ConfigConstant {
 
     String DEFAULT_ENV = "dev"; // 默认环境
 
+    String TIME_ORDERED_REQUEST_ID_GENERATOR = "TIME_ORDERED"; // 默认请求ID生成器
+
 }
@@ -1,9 +1,21 @@
 package com.infinite.gateway.common.constant;
 
+import io.netty.util.AsciiString;
+
 public interface HttpConstant {
 
     String HTTP_PREFIX_SEPARATOR = "http://";
 
-    String HTTP_FORWARD_SEPARATOR = "X-Forwarded-For";
+    AsciiString HTTP_FORWARD_SEPARATOR = AsciiString.cached("x-forwarded-for");
+
+    AsciiString HTTP_FORWARDED_PROTO = AsciiString.cached("x-forwarded-proto");
+
+    AsciiString HTTP_FORWARDED_HOST = AsciiString.cached("x-forwarded-host");
+
+    AsciiString HTTP_PROXY_CONNECTION = AsciiString.cached("proxy-connection");
+
+    AsciiString HTTP_KEEP_ALIVE = AsciiString.cached("keep-alive");
+
+    AsciiString HTTP_REQUEST_ID = AsciiString.cached("x-request-id");
 
 }
@@ -16,4 +16,16 @@ public interface LoadBalanceConstant {
 
     String CLIENT_IP_CONSISTENT_HASH_LOAD_BALANCE_STRATEGY = "client_ip_consistent_hash_load_balance_strategy"; // 根据请求ip的一致性哈希策略
 
+    String P2C_LEAST_REQUEST_LOAD_BALANCE_STRATEGY = "p2c_least_request_load_balance_strategy"; // 二选一最少在途请求策略
+
+    String PEAK_EWMA_LOAD_BALANCE_STRATEGY = "peak_ewma_load_balance_strategy"; // 二选一 Peak-EWMA 延迟感知策略
+
+    long PEAK_EWMA_DECAY_TIME = 10_000; // Peak-EWMA 衰减时间（毫秒）
+
+    String MAGLEV_LOAD_BALANCE_STRATEGY = "maglev_load_balance_strategy"; // Maglev 一致性哈希策略
+
+    int MAGLEV_TABLE_SIZE = 65537; // Maglev 查找表大小，必须是质数
+
+    long OUTLIER_DETECTION_INTERVAL = 10_000; // 异常实例检测周期（毫秒），成功率检测与驱逐到期恢复都按该周期进行
+
 }
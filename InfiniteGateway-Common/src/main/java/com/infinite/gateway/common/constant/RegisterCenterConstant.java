@@ -8,4 +8,12 @@ public interface RegisterCenterConstant {
 
     String REGISTER_CENTER_DEFAULT_ADDRESS = "127.0.0.1:8848"; // 默认注册中心地址
 
+    String METADATA_ZONE_KEY = "zone"; // 实例元数据中的可用区
+
+    String METADATA_REGION_KEY = "region"; // 实例元数据中的地域
+
+    String METADATA_GRAY_KEY = "gray"; // 实例元数据中的是否灰度，true 表示灰度实例
+
+    String METADATA_GRAY_THRESHOLD_KEY = "threshold"; // 实例元数据中的灰度流量比例
+
 }
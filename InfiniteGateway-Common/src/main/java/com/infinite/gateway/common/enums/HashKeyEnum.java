@@ -0,0 +1,22 @@
+package com.infinite.gateway.common.enums;
+
+import lombok.Getter;
+
+/**
+ * 哈希类负载均衡策略取哈希键的来源
+ */
+@Getter
+public enum HashKeyEnum {
+
+    CLIENT_IP("客户端IP"),
+    HEADER("请求头，hashKeyName 为请求头名"),
+    COOKIE("Cookie，hashKeyName 为 Cookie 名"),
+    PATH_VARIABLE("路径段，hashKeyName 为从 0 开始的路径段下标");
+
+    private final String des;
+
+    HashKeyEnum(String des) {
+        this.des = des;
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.infinite.gateway.common.enums;
+
+import lombok.Getter;
+
+/**
+ * 主动健康检查方式
+ */
+@Getter
+public enum HealthCheckEnum {
+
+    HTTP("HTTP"),
+    TCP("TCP");
+
+    private final String name;
+
+    HealthCheckEnum(String name) {
+        this.name = name;
+    }
+
+}
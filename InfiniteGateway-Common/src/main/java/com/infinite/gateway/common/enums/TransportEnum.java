@@ -0,0 +1,21 @@
+package com.infinite.gateway.common.enums;
+
+import lombok.Getter;
+
+/**
+ * Netty 传输层实现
+ */
+@Getter
+public enum TransportEnum {
+
+    IO_URING("IO_URING"),
+    EPOLL("EPOLL"),
+    NIO("NIO");
+
+    private final String name;
+
+    TransportEnum(String name) {
+        this.name = name;
+    }
+
+}
@@ -25,4 +25,12 @@ public class GatewayException extends RuntimeException {
         this.code = code;
     }
 
+    /**
+     * 不填充堆栈的异常，用于限流、路由未命中等高频且只关心响应码的场景
+     */
+    protected GatewayException(ResponseCode code, boolean writableStackTrace) {
+        super(code.getMessage(), null, false, writableStackTrace);
+        this.code = code;
+    }
+
 }
@@ -13,7 +13,8 @@ public class LimitedException extends GatewayException {
     private static final long serialVersionUID = -5975157585816767314L;
 
     public LimitedException(ResponseCode code) {
-        super(code.getMessage(), code);
+        // 限流拒绝是正常的流量控制结果，不需要堆栈
+        super(code, false);
     }
 
     public LimitedException(Throwable cause, ResponseCode code) {
@@ -13,7 +13,8 @@ public class NotFoundException extends GatewayException {
 	private static final long serialVersionUID = -4825153388389722853L;
 
     public NotFoundException(ResponseCode code) {
-        super(code.getMessage(), code);
+        // 路由或实例未命中只关心响应码，不需要堆栈
+        super(code, false);
     }
 
     public NotFoundException(Throwable cause, ResponseCode code) {
@@ -2,6 +2,7 @@ package com.infinite.gateway.common.pojo;
 
 import com.infinite.gateway.common.enums.CircuitBreakerEnum;
 import com.infinite.gateway.common.enums.FlowEnum;
+import com.infinite.gateway.common.enums.HashKeyEnum;
 import com.infinite.gateway.common.enums.ResilienceEnum;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -50,6 +51,16 @@ public class RouteDefinition {
      */
     private ResilienceConfig resilienceConfig;
 
+    /**
+     * 响应压缩配置，为空时透传客户端的 Accept-Encoding 给下游，网关不做边缘压缩
+     */
+    private CompressionConfig compressionConfig;
+
+    /**
+     * 异常实例检测配置，为空时不驱逐实例
+     */
+    private OutlierDetectionConfig outlierDetectionConfig;
+
 
     @Data
     @AllArgsConstructor
@@ -85,6 +96,16 @@ public class RouteDefinition {
          * 灰度流量最大比例
          */
         private double maxGrayThreshold = MAX_GRAY_THRESHOLD;
+
+        /**
+         * 灰度分桶的哈希键来源，同一个键总是落在同一个桶
+         */
+        private HashKeyEnum grayKey = HashKeyEnum.CLIENT_IP;
+
+        /**
+         * 请求头名 / Cookie 名 / 路径段下标，如用户id请求头，取不到时退回客户端IP
+         */
+        private String grayKeyName;
     }
 
     @Data
@@ -105,6 +126,52 @@ public class RouteDefinition {
          */
         private int virtualNodeNum = VIRTUAL_NODE_NUM;
 
+        /**
+         * 哈希类策略的哈希键来源
+         */
+        private HashKeyEnum hashKey = HashKeyEnum.CLIENT_IP;
+
+        /**
+         * 请求头名 / Cookie 名 / 路径段下标，取不到时退回客户端IP
+         */
+        private String hashKeyName;
+
+        /**
+         * 新实例慢启动时长（毫秒），期间有效权重逐渐增加到配置的权重，0 表示不开启
+         */
+        private long slowStartWindow = 0;
+
+        /**
+         * 慢启动曲线：有效权重比例 = (已上线时长 / 慢启动时长) ^ (1 / aggression)，1 为线性，越大前期增长越快
+         */
+        private double slowStartAggression = 1.0;
+
+        /**
+         * 慢启动期间有效权重的最小比例（百分比）
+         */
+        private int slowStartMinWeightPercent = 10;
+
+        /**
+         * 是否优先选择与网关同一可用区的实例，需要配置网关的 zone，哈希类策略不生效
+         */
+        private boolean zoneAware = false;
+
+        /**
+         * 按实例元数据选择子集时使用的元数据键，如 version，为空时不按元数据选择
+         */
+        private String subsetKey;
+
+        /**
+         * 携带子集取值的请求头，如 x-version: v2
+         */
+        private String subsetHeader;
+
+        /**
+         * 请求没有携带子集取值时使用的值，为空时使用默认实例集合（按灰度标记划分）
+         * 子集中没有已启用的实例时同样退回默认实例集合
+         */
+        private String subsetValue;
+
     }
 
     @Data
@@ -135,6 +202,78 @@ public class RouteDefinition {
 
     }
 
+    @Data
+    public static class CompressionConfig {
+
+        /**
+         * 是否开启网关边缘压缩，下游返回未压缩的响应且客户端支持时由网关压缩
+         */
+        private boolean enabled = true;
+
+        /**
+         * 是否透传下游已压缩的响应体
+         * 开启时把客户端的 Accept-Encoding 转发给下游，下游压缩后的响应体原样返回给客户端
+         * 关闭时向下游请求未压缩的内容，统一由网关压缩
+         */
+        private boolean passthrough = true;
+
+        /**
+         * 压缩级别，1-9，越大压缩率越高、CPU 开销越大
+         */
+        private int level = 6;
+
+        /**
+         * 最小压缩大小，响应体小于该值时不压缩，单位字节
+         */
+        private int minResponseSize = 1024;
+
+    }
+
+    @Data
+    public static class OutlierDetectionConfig {
+
+        /**
+         * 是否开启异常实例驱逐
+         */
+        private boolean enabled = true;
+
+        /**
+         * 连续失败（5xx、连接失败、超时）多少次后驱逐，小于等于 0 时不按连续失败驱逐
+         */
+        private int consecutiveFailures = 5;
+
+        /**
+         * 成功率检测：统计周期内请求数达到该值的实例才参与计算
+         */
+        private int successRateRequestVolume = 100;
+
+        /**
+         * 成功率检测：参与计算的实例数达到该值才进行检测，小于等于 0 时不按成功率驱逐
+         */
+        private int successRateMinimumHosts = 5;
+
+        /**
+         * 成功率检测：成功率低于 平均值 - 标准差 * 该系数 的实例被驱逐
+         */
+        private double successRateStdevFactor = 1.9;
+
+        /**
+         * 基础驱逐时长，单位ms，每多被驱逐一次翻倍
+         */
+        private long baseEjectionTime = 30000;
+
+        /**
+         * 最大驱逐时长，单位ms
+         */
+        private long maxEjectionTime = 300000;
+
+        /**
+         * 一个服务最多同时驱逐的实例比例（百分比），至少允许驱逐一个，但不会驱逐最后一个可用实例
+         */
+        private int maxEjectionPercent = 10;
+
+    }
+
     @Data
     public static class ResilienceConfig {
 
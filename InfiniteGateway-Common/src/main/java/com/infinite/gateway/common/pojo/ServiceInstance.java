@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 
 import java.io.Serial;
 import java.io.Serializable;
+import java.util.Map;
 
 /**
  * 服务实例
@@ -65,4 +66,19 @@ public class ServiceInstance implements Serializable {
      */
     private long registerTime;
 
+    /**
+     * 实例所在的可用区，来自注册中心元数据
+     */
+    private String zone;
+
+    /**
+     * 实例所在的地域，来自注册中心元数据
+     */
+    private String region;
+
+    /**
+     * 注册中心中的实例元数据
+     */
+    private Map<String, String> metadata;
+
 }
@@ -3,6 +3,7 @@ package com.infinite.gateway.common.util;
 
 import io.netty.channel.epoll.Epoll;
 import io.netty.channel.kqueue.KQueue;
+import io.netty.incubator.channel.uring.IOUring;
 
 public class SystemUtil {
 	
@@ -45,6 +46,10 @@ public class SystemUtil {
         return isLinuxPlatform() && Epoll.isAvailable();
     }
 
+    public static boolean useIoUring() {
+        return isLinuxPlatform() && IOUring.isAvailable();
+    }
+
     public static boolean useKqueue() {
         return isMacPlatform() && KQueue.isAvailable();
     }
@@ -20,6 +20,18 @@ public class Config {
     // 环境
     private String env = DEFAULT_ENV;
 
+    // 网关所在的可用区，配置后开启按可用区优先的负载均衡
+    private String zone;
+
+    // 网关所在的地域
+    private String region;
+
+    // 请求ID生成器
+    private String requestIdGenerator = TIME_ORDERED_REQUEST_ID_GENERATOR;
+
+    // 请求ID中的节点号（0~65535），小于0时由本机IP和端口计算
+    private int requestIdNodeId = -1;
+
     // 配置中心
     private ConfigCenter configCenter = new ConfigCenter();
 
@@ -1,5 +1,7 @@
 package com.infinite.gateway.config.config.http;
 
+import com.infinite.gateway.common.enums.HealthCheckEnum;
+import com.infinite.gateway.common.enums.TransportEnum;
 import lombok.Data;
 
 @Data
@@ -7,6 +9,8 @@ public class HttpClientConfig {
 
     private int eventLoopGroupWorkerNum = Runtime.getRuntime().availableProcessors() * 2; // worker数量
 
+    private String transport = TransportEnum.EPOLL.getName(); // 传输层：IO_URING/EPOLL/NIO，AsyncHttpClient 不支持 io_uring，配置 IO_URING 时回退到 EPOLL
+
     private int httpConnectTimeout = 30 * 1000; // 连接超时时间
 
     private int httpRequestTimeout = 30 * 1000; // 请求超时时间
@@ -19,4 +23,30 @@ public class HttpClientConfig {
 
     private int httpPooledConnectionIdleTimeout = 60 * 1000; // 客户端空闲连接超时时间, 默认60秒
 
+    private boolean httpWarmUpEnabled = true; // 是否开启新实例连接预热
+
+    private int httpWarmUpConnections = 4; // 每个新实例预热时建立的空闲连接数
+
+    private String httpWarmUpPath = "/"; // 预热请求路径，使用HEAD请求，只要连接建立成功即视为预热完成
+
+    private int httpWarmUpTimeout = 3 * 1000; // 预热超时时间，超时后无论预热结果如何都放行流量
+
+    private boolean httpKeepWarmEnabled = true; // 是否定时刷新空闲连接，避免连接池被 httpPooledConnectionIdleTimeout 清空
+
+    private boolean httpHealthCheckEnabled = false; // 是否开启主动健康检查
+
+    private String httpHealthCheckType = HealthCheckEnum.HTTP.getName(); // 健康检查方式：HTTP（GET 请求，2xx/3xx 视为健康）/TCP（能建立连接视为健康）
+
+    private String httpHealthCheckPath = "/"; // HTTP 健康检查路径
+
+    private int httpHealthCheckInterval = 5 * 1000; // 健康检查间隔
+
+    private int httpHealthCheckJitter = 1000; // 每次检查额外增加 0~jitter 毫秒的随机延迟，避免所有实例同时被检查
+
+    private int httpHealthCheckTimeout = 2 * 1000; // 健康检查超时时间
+
+    private int httpHealthCheckHealthyThreshold = 2; // 不健康的实例连续成功多少次后恢复
+
+    private int httpHealthCheckUnhealthyThreshold = 3; // 健康的实例连续失败多少次后标记为不健康
+
 }
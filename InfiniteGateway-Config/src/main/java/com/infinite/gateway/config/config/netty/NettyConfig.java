@@ -1,5 +1,6 @@
 package com.infinite.gateway.config.config.netty;
 
+import com.infinite.gateway.common.enums.TransportEnum;
 import lombok.Data;
 
 /**
@@ -8,12 +9,54 @@ import lombok.Data;
 @Data
 public class NettyConfig {
 
+    /**
+     * 传输层：IO_URING / EPOLL / NIO，不可用时按 io_uring -> epoll -> nio 的顺序回退
+     */
+    private String transport = TransportEnum.EPOLL.getName();
+
     private int eventLoopGroupBossNum = 1;
 
     private int eventLoopGroupWorkerNum = Runtime.getRuntime().availableProcessors();
 
     private int maxContentLength = 64 * 1024 * 1024;
 
+    /**
+     * 连接等待队列大小（SO_BACKLOG），实际生效值还受内核 net.core.somaxconn 限制
+     */
+    private int soBacklog = 1024;
+
+    /**
+     * 连接发送缓冲区大小，小于等于0时使用内核默认值（开启自动调优）
+     */
+    private int soSndBuf = 65535;
+
+    /**
+     * 连接接收缓冲区大小，小于等于0时使用内核默认值（开启自动调优）
+     */
+    private int soRcvBuf = 65535;
+
+    /**
+     * 是否使用 SO_REUSEPORT 在同一端口上监听多个 socket，由内核在多个 socket 间均衡分发新连接，
+     * 避免单个 accept 线程成为瓶颈，仅在 Linux epoll / io_uring 下生效
+     */
+    private boolean reusePort = false;
+
+    /**
+     * 开启 reusePort 时监听的 socket 数量，每个 socket 由一个独立的 boss 线程负责 accept，
+     * 小于等于0时取 eventLoopGroupWorkerNum
+     */
+    private int reusePortAcceptorNum = 0;
+
+    /**
+     * TCP_FASTOPEN 的等待队列长度，小于等于0时不开启，仅在 Linux epoll / io_uring 下生效
+     */
+    private int tcpFastOpen = 0;
+
+    /**
+     * TCP_DEFER_ACCEPT 超时时间（秒），连接上有数据到达才唤醒 accept，小于等于0时不开启，仅在 Linux epoll / io_uring 下生效
+     */
+    private int tcpDeferAccept = 0;
+
     /**
      * 业务线程池线程数，默认为CPU核数
      * 用于处理网关业务逻辑（过滤器链、限流、灰度、负载均衡等），与IO线程分离
@@ -25,4 +68,41 @@ public class NettyConfig {
      */
     private int businessQueueSize = 512;
 
+    /**
+     * 单个 http1.1 连接上允许同时处理的 pipelining 请求数，达到上限后暂停读取该连接
+     */
+    private int maxPipelinedRequests = 16;
+
+    /**
+     * 是否合并 flush：同一个 EventLoop 周期内写出的多个响应（pipelining 的 http1.1 或多路复用的 h2 stream）
+     * 合并为一次 flush，即一次 writev 系统调用
+     */
+    private boolean flushConsolidationEnabled = true;
+
+    /**
+     * 连续合并的 flush 次数上限，达到后立即 flush，避免高负载下响应长时间滞留在出站缓冲区
+     */
+    private int flushConsolidationLimit = 256;
+
+    /**
+     * HTTP/2 SETTINGS_MAX_CONCURRENT_STREAMS，单个连接上允许的最大并发 stream 数
+     */
+    private long http2MaxConcurrentStreams = 1024;
+
+    /**
+     * HTTP/2 SETTINGS_INITIAL_WINDOW_SIZE，stream 级别的初始流控窗口，默认 1MB，
+     * 协议默认值 64KB 对较大的请求体会频繁等待 WINDOW_UPDATE
+     */
+    private int http2InitialWindowSize = 1024 * 1024;
+
+    /**
+     * HTTP/2 SETTINGS_HEADER_TABLE_SIZE，HPACK 动态表大小
+     */
+    private long http2HeaderTableSize = 4096;
+
+    /**
+     * TLS 配置
+     */
+    private SslConfig ssl = new SslConfig();
+
 }
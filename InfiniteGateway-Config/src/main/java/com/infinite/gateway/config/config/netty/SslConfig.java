@@ -0,0 +1,67 @@
+package com.infinite.gateway.config.config.netty;
+
+import lombok.Data;
+
+/**
+ * TLS 配置
+ */
+@Data
+public class SslConfig {
+
+    /**
+     * 是否在网关上直接终止 TLS，关闭时只提供明文 http1.1 与 h2c
+     */
+    private boolean enabled = false;
+
+    /**
+     * 证书链文件（PEM）
+     */
+    private String certChainFile;
+
+    /**
+     * 私钥文件（PKCS#8 PEM）
+     */
+    private String privateKeyFile;
+
+    /**
+     * 私钥密码，未加密时为空
+     */
+    private String keyPassword;
+
+    /**
+     * 优先使用 OpenSSL（netty-tcnative / BoringSSL），不可用时回退到 JDK 实现
+     */
+    private boolean preferOpenSsl = true;
+
+    /**
+     * 会话缓存大小
+     */
+    private int sessionCacheSize = 20480;
+
+    /**
+     * 会话超时时间，单位秒
+     */
+    private int sessionTimeout = 300;
+
+    /**
+     * 会话票据密钥文件，每 48 字节一组（16 字节名称 + 16 字节 HMAC 密钥 + 16 字节 AES 密钥），
+     * 多个网关节点使用同一份文件时，客户端可以在任意节点上恢复会话；为空时每个节点各自随机生成
+     */
+    private String sessionTicketKeyFile;
+
+    /**
+     * 证书文件变更检查间隔，单位毫秒
+     */
+    private long certReloadInterval = 60000;
+
+    /**
+     * 握手超时时间，单位毫秒
+     */
+    private long handshakeTimeout = 10000;
+
+    /**
+     * 握手指标输出间隔，单位毫秒，小于等于0时不输出
+     */
+    private long metricsLogInterval = 60000;
+
+}
@@ -13,8 +13,13 @@ import com.infinite.gateway.dynamic.thread.pool.registry.RejectedPolicyRegistry;
 import com.infinite.gateway.register.service.RegisterCenterService;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.ServiceLoader;
 
+import static com.infinite.gateway.common.constant.RegisterCenterConstant.METADATA_REGION_KEY;
+import static com.infinite.gateway.common.constant.RegisterCenterConstant.METADATA_ZONE_KEY;
+
 /**
  * 网关启动入口类，负责初始化并启动网关核心组件
  */
@@ -102,6 +107,14 @@ public class Bootstrap {
      */
     private ServiceInstance buildServiceInstance() {
         String ip = NetUtil.getLocalIp();
+        // 网关自身的可用区和地域写入实例元数据
+        Map<String, String> metadata = new HashMap<>();
+        if (config.getZone() != null) {
+            metadata.put(METADATA_ZONE_KEY, config.getZone());
+        }
+        if (config.getRegion() != null) {
+            metadata.put(METADATA_REGION_KEY, config.getRegion());
+        }
         return ServiceInstance.builder()
                 .serviceName(config.getName())
                 .instanceId(ip + ":" + config.getPort())
@@ -109,6 +122,9 @@ public class Bootstrap {
                 .port(config.getPort())
                 .enabled(config.getRegisterCenter().isEnabled())
                 .weight(1)
+                .zone(config.getZone())
+                .region(config.getRegion())
+                .metadata(metadata)
                 .build();
     }
 
@@ -2,7 +2,10 @@ package com.infinite.gateway.core.context;
 
 import com.infinite.gateway.common.pojo.RouteDefinition;
 import com.infinite.gateway.core.filter.FilterChain;
+import com.infinite.gateway.core.filter.loadbalance.stats.InstanceStats;
+import com.infinite.gateway.core.helper.CompressionHelper;
 import com.infinite.gateway.core.helper.ResponseHelper;
+import com.infinite.gateway.core.netty.handler.PipelinedHttpResponse;
 import com.infinite.gateway.core.request.GatewayRequest;
 import com.infinite.gateway.core.response.GatewayResponse;
 import io.netty.channel.ChannelFutureListener;
@@ -11,15 +14,50 @@ import io.netty.channel.EventLoop;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.internal.ObjectPool;
+import io.netty.util.internal.SystemPropertyUtil;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+import static com.infinite.gateway.common.constant.HttpConstant.HTTP_REQUEST_ID;
 
 /**
  * GatewayContext 是网关请求处理的核心上下文对象。
  * 它贯穿整个请求生命周期，封装了请求、响应、路由信息以及当前执行的过滤器链等关键数据。
+ *
+ * 上下文与其中的 GatewayRequest 通过 Netty 的对象池复用：由 {@link #newInstance} 获取，
+ * 响应写出后在 EventLoop 线程中回收，回收后任何地方都不能再持有它。
+ * 开启 -Dinfinite.gateway.recycler.debug=true 时回收的对象不再放回对象池，并在回收后被访问时抛出异常，用于排查回收后继续使用的问题。
  */
 @Data
+@Slf4j
 public class GatewayContext {
 
+    private static final boolean RECYCLER_DEBUG = SystemPropertyUtil.getBoolean("infinite.gateway.recycler.debug", false);
+
+    private static final ObjectPool<GatewayContext> RECYCLER = ObjectPool.newPool(GatewayContext::new);
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final ObjectPool.Handle<GatewayContext> handle;
+
+    /**
+     * 是否已经回收，只在调试模式下使用
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private volatile boolean recycled;
+
     /**
      * Netty 的 ChannelHandlerContext，用于与客户端进行通信。
      */
@@ -55,6 +93,22 @@ public class GatewayContext {
      */
     private FilterChain filterChain;
 
+    /**
+     * 负载均衡选中的实例的统计，下游请求结束时扣减在途请求数。
+     */
+    @Getter(AccessLevel.NONE)
+    private InstanceStats upstreamStats;
+
+    /**
+     * 负载均衡策略缓存状态使用的键，按服务的实例子集选择时与服务名不同
+     */
+    private String loadBalanceKey;
+
+    /**
+     * 负载均衡候选视图的版本号，负载均衡策略按它判断实例列表的新旧
+     */
+    private long instanceVersion;
+
     /**
      * 当前正在执行的过滤器索引。
      */
@@ -66,20 +120,36 @@ public class GatewayContext {
      */
     private boolean isDoPreFilter = true;
 
+    private GatewayContext(ObjectPool.Handle<GatewayContext> handle) {
+        this.handle = handle;
+    }
+
     /**
-     * 构造函数，初始化 GatewayContext。
+     * 从对象池获取并初始化 GatewayContext。
      *
      * @param nettyCtx Netty 的上下文对象
      * @param request 网关请求对象
      * @param route 匹配的路由定义
      * @param keepAlive 是否保持连接
      */
-    public GatewayContext(ChannelHandlerContext nettyCtx, GatewayRequest request,
-                          RouteDefinition route, boolean keepAlive) {
-        this.nettyCtx = nettyCtx;
-        this.request = request;
-        this.route = route;
-        this.keepAlive = keepAlive;
+    public static GatewayContext newInstance(ChannelHandlerContext nettyCtx, GatewayRequest request,
+                                             RouteDefinition route, boolean keepAlive) {
+        GatewayContext context = RECYCLER.get();
+        context.recycled = false;
+        context.nettyCtx = nettyCtx;
+        context.request = request;
+        context.route = route;
+        context.keepAlive = keepAlive;
+        // 不依赖上一次回收时留下的状态
+        context.throwable = null;
+        context.response = null;
+        context.filterChain = null;
+        context.upstreamStats = null;
+        context.loadBalanceKey = null;
+        context.instanceVersion = 0;
+        context.curFilterIndex = 0;
+        context.isDoPreFilter = true;
+        return context;
     }
 
     /**
@@ -90,26 +160,31 @@ public class GatewayContext {
      *
      * 每次调用 doFilter() 方法会推进当前执行的过滤器索引，
      * 直到所有过滤器执行完毕后，最终调用 ContextHelper.writeBackResponse() 返回响应。
+     *
+     * 索引和阶段都在调用过滤器之前更新：最后一个前置过滤器（RouterFilter）会把上下文交给下游回调或熔断降级，
+     * 调用返回时上下文可能已经写回并被回收，之后不能再访问任何字段
      */
     public void doFilter() {
-        int size = filterChain.size();
+        checkNotRecycled();
         if (isDoPreFilter) {
             // 执行前置过滤器
-            filterChain.doPreFilter(curFilterIndex++, this);
-            if (curFilterIndex == size) {
-                // 所有前置过滤器已执行完毕，切换为后置阶段
+            int index = curFilterIndex++;
+            if (curFilterIndex == filterChain.size()) {
+                // 最后一个前置过滤器，执行前切换为后置阶段，后置阶段从它开始逆序执行
                 isDoPreFilter = false;
-                curFilterIndex--;  // 回退一个索引，准备执行 postFilter
+                curFilterIndex = index;
             }
+            filterChain.doPreFilter(index, this);
         } else {
-            // 执行后置过滤器
-            filterChain.doPostFilter(curFilterIndex--, this);
-            if (curFilterIndex < 0) {
-                // 所有过滤器都已执行完毕，写回响应
-                // 确保在EventLoop线程中执行写操作
-                EventLoop eventLoop = this.getNettyCtx().channel().eventLoop();
-                eventLoop.execute(this::writeBackResponse);
+            int index = curFilterIndex--;
+            if (index < 0) {
+                // 所有后置过滤器都已执行完毕，写回响应
+                // writeBackResponse 内部会切到EventLoop线程执行写操作，这里不再额外切换一次
+                writeBackResponse();
+                return;
             }
+            // 执行后置过滤器，过滤器内部调用 doFilter 继续执行下一个，直到写回响应
+            filterChain.doPostFilter(index, this);
         }
     }
 
@@ -121,27 +196,96 @@ public class GatewayContext {
      * 这样可以保证线程安全，避免并发写导致的问题
      */
     public void writeBackResponse() {
-        // 1. 从上下文构建HTTP响应对象
-        FullHttpResponse httpResponse = ResponseHelper.buildHttpResponse(this.getResponse());
+        checkNotRecycled();
+        // 1. 从上下文构建HTTP响应对象，下游未压缩时按路由策略在网关边缘压缩
+        FullHttpResponse httpResponse = CompressionHelper.compressIfNecessary(this.getRoute(), this.getRequest(),
+                ResponseHelper.buildHttpResponse(this.getResponse(), request.getMethod()), this.getNettyCtx().alloc());
+        httpResponse.headers().set(HTTP_REQUEST_ID, request.getId());
 
         // 2. 获取Channel对应的EventLoop
         EventLoop eventLoop = this.getNettyCtx().channel().eventLoop();
 
-        // 3. 确保写操作在EventLoop线程中执行（线程边界控制）
-        eventLoop.execute(() -> {
-            // 根据连接类型处理响应
-            if (!this.isKeepAlive()) {
-                // 短连接：发送响应后关闭连接
-                this.getNettyCtx().writeAndFlush(httpResponse)
-                        .addListener(ChannelFutureListener.CLOSE);
-            } else {
-                // 长连接：设置Keep-Alive头部并发送响应
-                httpResponse.headers().set(
-                        HttpHeaderNames.CONNECTION,  // "Connection"
-                        HttpHeaderValues.KEEP_ALIVE  // "keep-alive"
-                );
-                this.getNettyCtx().writeAndFlush(httpResponse);
-            }
-        });
+        // 3. 确保写操作在EventLoop线程中执行（线程边界控制），已经在EventLoop线程中时直接写
+        if (eventLoop.inEventLoop()) {
+            doWriteBackResponse(httpResponse);
+        } else {
+            eventLoop.execute(() -> doWriteBackResponse(httpResponse));
+        }
+    }
+
+    private void doWriteBackResponse(FullHttpResponse httpResponse) {
+        // 根据连接类型处理响应
+        // flush 由 pipeline 头部的 FlushConsolidationHandler 合并，同一EventLoop周期内的多个响应只触发一次系统调用
+        // 响应携带所属请求，http1.1 pipelining 时由 HttpPipeliningHandler 按请求顺序放行
+        if (!this.isKeepAlive()) {
+            // 短连接：发送响应后关闭连接
+            this.getNettyCtx().writeAndFlush(new PipelinedHttpResponse(request.getFullHttpRequest(), httpResponse))
+                    .addListener(ChannelFutureListener.CLOSE);
+        } else {
+            // 长连接：设置Keep-Alive头部并发送响应
+            httpResponse.headers().set(
+                    HttpHeaderNames.CONNECTION,  // "Connection"
+                    HttpHeaderValues.KEEP_ALIVE  // "keep-alive"
+            );
+            this.getNettyCtx().writeAndFlush(new PipelinedHttpResponse(request.getFullHttpRequest(), httpResponse));
+        }
+        // 响应已经写出，释放客户端请求（下游请求体对它的引用在发送结束时已各自释放）
+        ReferenceCountUtil.release(request.getFullHttpRequest());
+        recycle();
+    }
+
+    /**
+     * 清空所有字段后连同 GatewayRequest 一起放回对象池
+     */
+    private void recycle() {
+        checkNotRecycled();
+        // 没有走到 RouterFilter 就写回了响应（如自定义过滤器直接返回）
+        releaseUpstreamStats();
+        request.recycle();
+        nettyCtx = null;
+        throwable = null;
+        request = null;
+        response = null;
+        route = null;
+        keepAlive = false;
+        filterChain = null;
+        upstreamStats = null;
+        loadBalanceKey = null;
+        instanceVersion = 0;
+        curFilterIndex = 0;
+        isDoPreFilter = true;
+        if (RECYCLER_DEBUG) {
+            // 调试模式下不放回对象池，之后任何对它的访问都能被发现
+            recycled = true;
+            return;
+        }
+        handle.recycle(this);
+    }
+
+    /**
+     * 取走选中实例的统计，之后由调用方负责在下游请求结束时调用 onCompleted，保证只扣减一次。
+     */
+    public InstanceStats takeUpstreamStats() {
+        InstanceStats stats = upstreamStats;
+        upstreamStats = null;
+        return stats;
+    }
+
+    /**
+     * 请求没有发往下游就结束时，扣减选中实例的在途请求数。
+     */
+    public void releaseUpstreamStats() {
+        InstanceStats stats = takeUpstreamStats();
+        if (stats != null) {
+            stats.onCompleted();
+        }
+    }
+
+    private void checkNotRecycled() {
+        if (RECYCLER_DEBUG && recycled) {
+            IllegalStateException e = new IllegalStateException("GatewayContext is used after recycled");
+            log.error("use after recycle", e);
+            throw e;
+        }
     }
 }
@@ -3,6 +3,7 @@ package com.infinite.gateway.core.executor;
 import com.infinite.gateway.common.enums.ResponseCode;
 import com.infinite.gateway.core.helper.ResponseHelper;
 import com.infinite.gateway.core.netty.context.IoThreadRequestContextHolder;
+import com.infinite.gateway.core.netty.handler.PipelinedHttpResponse;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
@@ -88,10 +89,10 @@ public class GatewayJdkRejectedExecutionHandler implements RejectedExecutionHand
             // 写回响应
             if (keepAlive) {
                 // 保持连接
-                ctx.writeAndFlush(response);
+                ctx.writeAndFlush(new PipelinedHttpResponse(request, response));
             } else {
                 // 关闭连接
-                ctx.writeAndFlush(response).addListener(future -> ctx.close());
+                ctx.writeAndFlush(new PipelinedHttpResponse(request, response)).addListener(future -> ctx.close());
             }
 
             log.debug("[BackPressure] 成功写回 503 响应，keepAlive: {}", keepAlive);
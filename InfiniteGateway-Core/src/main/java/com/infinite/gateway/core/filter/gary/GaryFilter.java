@@ -1,20 +1,20 @@
 package com.infinite.gateway.core.filter.gary;
 
-import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.json.JSONUtil;
 import com.infinite.gateway.common.pojo.RouteDefinition;
-import com.infinite.gateway.common.pojo.ServiceInstance;
 import com.infinite.gateway.core.context.GatewayContext;
 import com.infinite.gateway.core.filter.Filter;
 import com.infinite.gateway.core.filter.gary.strategy.GaryStrategyManager;
 import com.infinite.gateway.core.filter.gary.strategy.GrayStrategy;
 import com.infinite.gateway.core.manager.DynamicConfigManager;
+import com.infinite.gateway.core.manager.ServiceInstanceView;
 import com.infinite.gateway.core.util.FilterUtil;
-
-import java.util.List;
+import lombok.extern.slf4j.Slf4j;
 
 import static com.infinite.gateway.common.constant.FilterConstant.GRAY_FILTER_NAME;
 import static com.infinite.gateway.common.constant.FilterConstant.GRAY_FILTER_ORDER;
 
+@Slf4j
 public class GaryFilter implements Filter {
 
     @Override
@@ -23,13 +23,17 @@ public class GaryFilter implements Filter {
         if (grayFilterConfig == null) {
             grayFilterConfig = FilterUtil.DefaultGrayFilterConfig();
         }
-        List<ServiceInstance> serviceInstances = DynamicConfigManager.getInstance().getServiceInstances(context.getRoute().getServiceName())
-                .stream().filter(ServiceInstance::isGray).toList();
-        if (grayFilterConfig.isEnable() && !serviceInstances.isEmpty()) {
+        // 灰度实例在实例变化时已经划分好，这里直接读取
+        ServiceInstanceView view = DynamicConfigManager.getInstance().getServiceInstanceView(context.getRoute().getServiceName());
+        if (grayFilterConfig.isEnable() && view != null && !view.getGray().isEmpty()) {
             // 灰度配置被开启了，并且存在灰度实例，接下来要按什么策略进行灰度呢？IP还是按阈值，使用策略模式 + spi机制
-            GrayStrategy grayStrategy = GaryStrategyManager.getGrayStrategy(
-                    BeanUtil.toBean(grayFilterConfig.getConfig(), RouteDefinition.GrayFilterConfig.class).getStrategyName());
-            grayStrategy.execute(context, serviceInstances);
+            RouteDefinition.GrayFilterConfig config = JSONUtil.toBean(grayFilterConfig.getConfig(), RouteDefinition.GrayFilterConfig.class);
+            GrayStrategy grayStrategy = GaryStrategyManager.getGrayStrategy(config.getStrategyName());
+            if (grayStrategy != null) {
+                grayStrategy.execute(context, view, config);
+            } else {
+                log.warn("gray strategy {} not found", config.getStrategyName());
+            }
         }
         context.doFilter();
     }
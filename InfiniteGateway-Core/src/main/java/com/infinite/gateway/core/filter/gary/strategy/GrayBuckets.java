@@ -0,0 +1,26 @@
+package com.infinite.gateway.core.filter.gary.strategy;
+
+import com.infinite.gateway.common.pojo.RouteDefinition;
+import com.infinite.gateway.core.filter.loadbalance.strategy.HashKeyResolver;
+import com.infinite.gateway.core.manager.ServiceInstanceView;
+
+import static com.infinite.gateway.common.constant.GrayConstant.GRAY_BUCKET_COUNT;
+
+/**
+ * 灰度分桶：哈希键经 64 位哈希后落到 GRAY_BUCKET_COUNT 个桶之一，桶号小于灰度桶数的请求走灰度实例
+ *
+ * 只依赖哈希键和注册中心的实例灰度比例，各网关节点不需要协调即可得到相同的结果；
+ * 灰度比例调大时原来的灰度用户仍然是灰度用户
+ */
+public class GrayBuckets {
+
+    public static int bucket(String key) {
+        return (int) Long.remainderUnsigned(HashKeyResolver.hash64(key), GRAY_BUCKET_COUNT);
+    }
+
+    public static boolean isGray(String key, ServiceInstanceView view, RouteDefinition.GrayFilterConfig config) {
+        int maxBuckets = (int) Math.round(config.getMaxGrayThreshold() * GRAY_BUCKET_COUNT);
+        return bucket(key) < Math.min(view.getGrayBuckets(), maxBuckets);
+    }
+
+}
@@ -1,13 +1,12 @@
 package com.infinite.gateway.core.filter.gary.strategy;
 
-import com.infinite.gateway.common.pojo.ServiceInstance;
+import com.infinite.gateway.common.pojo.RouteDefinition;
 import com.infinite.gateway.core.context.GatewayContext;
-
-import java.util.List;
+import com.infinite.gateway.core.manager.ServiceInstanceView;
 
 public interface GrayStrategy {
 
-     void execute(GatewayContext context, List<ServiceInstance> instances);
+     void execute(GatewayContext context, ServiceInstanceView view, RouteDefinition.GrayFilterConfig config);
 
      String mark();
 
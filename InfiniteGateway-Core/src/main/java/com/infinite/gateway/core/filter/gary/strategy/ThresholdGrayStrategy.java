@@ -0,0 +1,25 @@
+package com.infinite.gateway.core.filter.gary.strategy;
+
+import com.infinite.gateway.common.pojo.RouteDefinition;
+import com.infinite.gateway.core.context.GatewayContext;
+import com.infinite.gateway.core.filter.loadbalance.strategy.HashKeyResolver;
+import com.infinite.gateway.core.manager.ServiceInstanceView;
+
+import static com.infinite.gateway.common.constant.GrayConstant.THRESHOLD_GRAY_STRATEGY;
+
+/**
+ * 按灰度比例分流，哈希键可以配置为用户id请求头、Cookie 等，取不到时退回客户端IP
+ */
+public class ThresholdGrayStrategy implements GrayStrategy {
+
+    @Override
+    public void execute(GatewayContext context, ServiceInstanceView view, RouteDefinition.GrayFilterConfig config) {
+        String key = HashKeyResolver.resolve(context, config.getGrayKey(), config.getGrayKeyName());
+        context.getRequest().setGray(GrayBuckets.isGray(key, view, config));
+    }
+
+    @Override
+    public String mark() {
+        return THRESHOLD_GRAY_STRATEGY;
+    }
+}
@@ -7,9 +7,14 @@ import com.infinite.gateway.common.pojo.RouteDefinition;
 import com.infinite.gateway.common.pojo.ServiceInstance;
 import com.infinite.gateway.core.context.GatewayContext;
 import com.infinite.gateway.core.filter.Filter;
+import com.infinite.gateway.core.filter.loadbalance.locality.ZoneAwareSelector;
+import com.infinite.gateway.core.filter.loadbalance.outlier.OutlierDetector;
+import com.infinite.gateway.core.filter.loadbalance.stats.InstanceStats;
+import com.infinite.gateway.core.filter.loadbalance.stats.InstanceStatsRegistry;
 import com.infinite.gateway.core.filter.loadbalance.strategy.LoadBalanceStrategy;
 import com.infinite.gateway.core.filter.loadbalance.strategy.LoadBalanceStrategyManager;
 import com.infinite.gateway.core.manager.DynamicConfigManager;
+import com.infinite.gateway.core.manager.ServiceInstanceView;
 import com.infinite.gateway.core.util.FilterUtil;
 
 import java.util.List;
@@ -27,15 +32,50 @@ public class LoadBalanceFilter implements Filter {
         RouteDefinition.LoadBalanceFilterConfig loadBalanceFilterConfig = JSONUtil.toBean(filterConfig.getConfig(),
                 RouteDefinition.LoadBalanceFilterConfig.class);
         LoadBalanceStrategy strategy = LoadBalanceStrategyManager.getLoadBalanceStrategy(loadBalanceFilterConfig.getStrategyName());
-        List<ServiceInstance> instances = DynamicConfigManager.getInstance().getServiceInstances(context.getRoute().getServiceName());
-        if (instances == null || instances.isEmpty()) {
+        String serviceName = context.getRoute().getServiceName();
+        ServiceInstanceView view = DynamicConfigManager.getInstance().getServiceInstanceView(serviceName);
+        if (view == null || view.getEnabled().isEmpty()) {
             throw new NotFoundException(ResponseCode.SERVICE_INSTANCE_NOT_FOUND);
         }
+        // 去掉被驱逐和主动健康检查不通过的实例
+        view = OutlierDetector.getInstance().filter(serviceName, view, context.getRoute().getOutlierDetectionConfig());
+        context.setInstanceVersion(view.getVersion());
+        List<ServiceInstance> instances = selectSubset(context, view, loadBalanceFilterConfig);
+        ZoneAwareSelector zoneAwareSelector = ZoneAwareSelector.getInstance();
+        if (loadBalanceFilterConfig.isZoneAware() && zoneAwareSelector.isEnabled() && !strategy.isHashBased()) {
+            instances = zoneAwareSelector.select(context, instances);
+        }
         ServiceInstance instance = strategy.chooseInstance(context, instances, loadBalanceFilterConfig);
         context.getRequest().setModifyHost(instance.getInstanceId());
+        // 选中即计入在途请求，下游请求结束时由 RouterFilter 扣减
+        InstanceStats stats = InstanceStatsRegistry.getInstance().getStats(instance);
+        stats.onSelected();
+        context.setUpstreamStats(stats);
         context.doFilter();
     }
 
+    /**
+     * 选择请求对应的实例子集：先按元数据子集，没有配置或子集为空时按灰度标记选择预先划分好的实例列表
+     */
+    private List<ServiceInstance> selectSubset(GatewayContext context, ServiceInstanceView view,
+                                               RouteDefinition.LoadBalanceFilterConfig config) {
+        String subsetKey = config.getSubsetKey();
+        if (subsetKey != null) {
+            String value = config.getSubsetHeader() == null ? null : context.getRequest().getHeaders().get(config.getSubsetHeader());
+            if (value == null) {
+                value = config.getSubsetValue();
+            }
+            ServiceInstanceView.InstanceSubset subset = value == null ? null : view.getMetadataSubset(subsetKey, value);
+            if (subset != null) {
+                context.setLoadBalanceKey(subset.getLoadBalanceKey());
+                return subset.getInstances();
+            }
+        }
+        boolean gray = context.getRequest().isGray();
+        context.setLoadBalanceKey(view.loadBalanceKey(gray));
+        return view.select(gray);
+    }
+
     @Override
     public void doPostFilter(GatewayContext context) {
         context.doFilter();
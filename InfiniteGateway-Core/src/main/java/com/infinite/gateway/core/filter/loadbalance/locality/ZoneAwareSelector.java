@@ -0,0 +1,146 @@
+package com.infinite.gateway.core.filter.loadbalance.locality;
+
+import com.infinite.gateway.common.pojo.ServiceInstance;
+import com.infinite.gateway.config.config.Config;
+import com.infinite.gateway.core.context.GatewayContext;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 按可用区优先选择实例
+ *
+ * 候选实例按负载均衡键（服务名、灰度等）划分为与网关同可用区的子集和溢出子集（其他可用区，优先同地域），
+ * 划分结果按候选列表的引用缓存，只在实例变化后的第一次请求时重新划分。
+ * 假设网关节点在各可用区均匀部署，每个可用区的网关承担 1 / 可用区数 的流量：
+ * 本可用区实例的权重占比不低于这个份额时流量全部留在本可用区，不足时按比例把超出本可用区容量的部分溢出到其他可用区
+ */
+@Slf4j
+public class ZoneAwareSelector {
+
+    private static final ZoneAwareSelector INSTANCE = new ZoneAwareSelector();
+
+    /**
+     * 留在本可用区的概率的精度
+     */
+    private static final int PROBABILITY_SCALE = 10000;
+
+    private final ConcurrentHashMap<String /* 负载均衡键 */, ZoneSubsets> subsetsMap = new ConcurrentHashMap<>();
+
+    /**
+     * 网关所在的可用区，未配置时不按可用区选择
+     */
+    private volatile String localZone;
+
+    /**
+     * 网关所在的地域
+     */
+    private volatile String localRegion;
+
+    private ZoneAwareSelector() {
+    }
+
+    public static ZoneAwareSelector getInstance() {
+        return INSTANCE;
+    }
+
+    public void init(Config config) {
+        this.localZone = blankToNull(config.getZone());
+        this.localRegion = blankToNull(config.getRegion());
+        subsetsMap.clear();
+        log.info("gateway locality zone={} region={}", localZone, localRegion);
+    }
+
+    public boolean isEnabled() {
+        return localZone != null;
+    }
+
+    /**
+     * 选出本次请求使用的实例子集，并把子集对应的负载均衡键写入上下文
+     */
+    public List<ServiceInstance> select(GatewayContext context, List<ServiceInstance> instances) {
+        String key = context.getLoadBalanceKey();
+        ZoneSubsets subsets = subsetsMap.get(key);
+        // 候选列表只在实例变化时替换，按引用判断即可
+        if (subsets == null || subsets.instances != instances) {
+            subsets = new ZoneSubsets(key, instances, localZone, localRegion);
+            subsetsMap.put(key, subsets);
+        }
+        int probability = subsets.localProbability;
+        if (probability >= PROBABILITY_SCALE
+                || (probability > 0 && ThreadLocalRandom.current().nextInt(PROBABILITY_SCALE) < probability)) {
+            context.setLoadBalanceKey(subsets.localKey);
+            return subsets.local;
+        }
+        context.setLoadBalanceKey(subsets.spillKey);
+        return subsets.spill;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    static class ZoneSubsets {
+
+        private final List<ServiceInstance> instances;
+
+        private final List<ServiceInstance> local;
+
+        private final List<ServiceInstance> spill;
+
+        private final String localKey;
+
+        private final String spillKey;
+
+        /**
+         * 留在本可用区的概率，PROBABILITY_SCALE 表示全部留在本可用区
+         */
+        private final int localProbability;
+
+        ZoneSubsets(String key, List<ServiceInstance> instances, String localZone, String localRegion) {
+            this.instances = instances;
+            List<ServiceInstance> local = new ArrayList<>();
+            List<ServiceInstance> others = new ArrayList<>();
+            List<ServiceInstance> sameRegion = new ArrayList<>();
+            Set<String> zones = new HashSet<>();
+            long localWeight = 0;
+            long totalWeight = 0;
+            for (ServiceInstance instance : instances) {
+                int weight = Math.max(instance.getWeight(), 1);
+                totalWeight += weight;
+                zones.add(instance.getZone());
+                if (Objects.equals(localZone, instance.getZone())) {
+                    local.add(instance);
+                    localWeight += weight;
+                } else {
+                    others.add(instance);
+                    if (localRegion != null && localRegion.equals(instance.getRegion())) {
+                        sameRegion.add(instance);
+                    }
+                }
+            }
+            this.local = List.copyOf(local);
+            this.spill = List.copyOf(sameRegion.isEmpty() ? others : sameRegion);
+            this.localKey = key + "@" + localZone;
+            this.spillKey = key + "@!" + localZone;
+            if (local.isEmpty()) {
+                this.localProbability = 0;
+            } else if (others.isEmpty()) {
+                this.localProbability = PROBABILITY_SCALE;
+            } else {
+                // 本可用区容量占比 / 本可用区应承担的流量份额
+                double ratio = (double) localWeight * zones.size() / totalWeight;
+                this.localProbability = (int) Math.min(PROBABILITY_SCALE, Math.round(ratio * PROBABILITY_SCALE));
+            }
+            log.info("{} zone subsets rebuilt, local: {}, spill: {}, local probability: {}/{}",
+                    key, this.local.size(), this.spill.size(), localProbability, PROBABILITY_SCALE);
+        }
+    }
+
+}
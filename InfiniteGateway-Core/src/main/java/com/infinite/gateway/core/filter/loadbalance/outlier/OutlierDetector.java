@@ -0,0 +1,343 @@
+package com.infinite.gateway.core.filter.loadbalance.outlier;
+
+import com.infinite.gateway.common.pojo.RouteDefinition;
+import com.infinite.gateway.common.pojo.ServiceInstance;
+import com.infinite.gateway.core.filter.loadbalance.stats.InstanceStats;
+import com.infinite.gateway.core.filter.loadbalance.stats.InstanceStatsRegistry;
+import com.infinite.gateway.core.listener.ServiceInstanceListener;
+import com.infinite.gateway.core.manager.DynamicConfigManager;
+import com.infinite.gateway.core.manager.ServiceInstanceView;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.infinite.gateway.common.constant.LoadBalanceConstant.OUTLIER_DETECTION_INTERVAL;
+
+/**
+ * 被动异常实例检测
+ *
+ * 由 RouterFilter 把每次下游请求的结果记录到实例的 InstanceStats 中（无锁计数），两种方式驱逐异常实例：
+ * 1. 连续失败次数达到阈值时立即驱逐
+ * 2. 每个检测周期按实例之间的成功率比较，低于 平均值 - 标准差 * 系数 的实例被驱逐
+ * 驱逐时长按驱逐次数指数增长，到期后在检测周期中恢复；同一服务被驱逐的实例数受最大驱逐比例限制。
+ *
+ * 负载均衡的候选视图（去掉被驱逐和主动健康检查不通过的实例）按服务缓存，只在实例视图、驱逐状态或健康状态变化时重新生成，
+ * 候选实例没有变化时保留原候选视图。候选视图总是按注册中心最新的实例视图生成，并且每次都创建新的视图，
+ * 版本号总是大于之前生成的候选视图；每次重新生成后按顺序通知候选视图监听器
+ */
+@Slf4j
+public class OutlierDetector {
+
+    private static final OutlierDetector INSTANCE = new OutlierDetector();
+
+    private final ConcurrentHashMap<String /* 服务名 */, ServiceOutliers> serviceMap = new ConcurrentHashMap<>();
+
+    private final List<ServiceInstanceListener> candidateListeners = new CopyOnWriteArrayList<>();
+
+    private OutlierDetector() {
+        // 实例视图变化时立即重新生成已访问过的服务的候选视图，不等到下一个请求
+        DynamicConfigManager.getInstance().addServiceInstanceListener((serviceName, view) -> {
+            ServiceOutliers outliers = serviceMap.get(serviceName);
+            if (outliers != null) {
+                outliers.refresh(view);
+            }
+        });
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+                new DefaultThreadFactory("outlier-detector", true));
+        scheduler.scheduleWithFixedDelay(this::detect, OUTLIER_DETECTION_INTERVAL, OUTLIER_DETECTION_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    public static OutlierDetector getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 注册候选视图监听器，回调在生成候选视图的线程中执行（可能是请求线程），监听器内不能做耗时操作
+     */
+    public void addCandidateListener(ServiceInstanceListener listener) {
+        candidateListeners.add(listener);
+    }
+
+    /**
+     * 服务当前的负载均衡候选视图，服务还没有被访问过时返回 null
+     */
+    public ServiceInstanceView getCandidateView(String serviceName) {
+        ServiceOutliers outliers = serviceMap.get(serviceName);
+        Candidates candidates = outliers == null ? null : outliers.candidates;
+        return candidates == null ? null : candidates.available;
+    }
+
+    /**
+     * 去掉被驱逐和健康检查不通过的实例，返回负载均衡的候选视图
+     */
+    public ServiceInstanceView filter(String serviceName, ServiceInstanceView view,
+                                      RouteDefinition.OutlierDetectionConfig config) {
+        ServiceOutliers outliers = serviceMap.get(serviceName);
+        if (outliers == null) {
+            outliers = serviceMap.computeIfAbsent(serviceName, ServiceOutliers::new);
+        }
+        if (outliers.config != config) {
+            outliers.config = config;
+        }
+        Candidates candidates = outliers.candidates;
+        // 实例视图只在实例变化时替换，按引用判断即可
+        if (candidates == null || candidates.source != view) {
+            candidates = outliers.sync(view);
+        }
+        return candidates.available;
+    }
+
+    /**
+     * 实例的健康状态变化时重新生成候选视图
+     */
+    public void refresh(String serviceName) {
+        ServiceOutliers outliers = serviceMap.get(serviceName);
+        ServiceInstanceView view = DynamicConfigManager.getInstance().getServiceInstanceView(serviceName);
+        if (outliers != null && view != null) {
+            outliers.refresh(view);
+        }
+    }
+
+    /**
+     * 记录一次下游请求的结果，连续失败每达到一次阈值尝试驱逐一次实例（可能因最大驱逐比例被拒绝）
+     */
+    public void report(String serviceName, InstanceStats stats, boolean success,
+                       RouteDefinition.OutlierDetectionConfig config) {
+        if (success) {
+            stats.onUpstreamSuccess();
+            return;
+        }
+        int failures = stats.onUpstreamFailure();
+        if (config != null && config.isEnabled() && config.getConsecutiveFailures() > 0
+                && failures % config.getConsecutiveFailures() == 0) {
+            ServiceOutliers outliers = serviceMap.get(serviceName);
+            if (outliers != null) {
+                outliers.tryEject(stats, "consecutive failures: " + failures);
+            }
+        }
+    }
+
+    /**
+     * 检测周期：恢复驱逐到期的实例，按成功率驱逐异常实例
+     */
+    private void detect() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, ServiceOutliers> entry : serviceMap.entrySet()) {
+            try {
+                ServiceInstanceView view = DynamicConfigManager.getInstance().getServiceInstanceView(entry.getKey());
+                if (view == null) {
+                    serviceMap.remove(entry.getKey());
+                    continue;
+                }
+                entry.getValue().detect(view, now);
+            } catch (Exception e) {
+                log.error("outlier detection error, service: {}", entry.getKey(), e);
+            }
+        }
+    }
+
+    /**
+     * 负载均衡候选视图，source 为生成时使用的实例视图
+     */
+    private static class Candidates {
+
+        private final ServiceInstanceView source;
+
+        private final ServiceInstanceView available;
+
+        Candidates(ServiceInstanceView source, ServiceInstanceView available) {
+            this.source = source;
+            this.available = available;
+        }
+    }
+
+    private class ServiceOutliers {
+
+        private final String serviceName;
+
+        private volatile RouteDefinition.OutlierDetectionConfig config;
+
+        private volatile Candidates candidates;
+
+        ServiceOutliers(String serviceName) {
+            this.serviceName = serviceName;
+        }
+
+        /**
+         * 请求带来的实例视图与候选视图不一致时调用：请求可能还持有旧视图，已经按最新视图生成过时直接返回
+         */
+        synchronized Candidates sync(ServiceInstanceView view) {
+            ServiceInstanceView latest = latest(view);
+            Candidates candidates = this.candidates;
+            if (candidates != null && candidates.source == latest) {
+                return candidates;
+            }
+            return refresh(latest);
+        }
+
+        /**
+         * 驱逐状态变化只发生在连续失败达到阈值和检测周期中，频率很低，这里加锁保证驱逐比例的检查与驱逐是原子的
+         */
+        synchronized Candidates refresh(ServiceInstanceView view) {
+            view = latest(view);
+            InstanceStatsRegistry registry = InstanceStatsRegistry.getInstance();
+            List<ServiceInstance> instances = view.getEnabled();
+            List<ServiceInstance> available = null;
+            for (int i = 0; i < instances.size(); i++) {
+                InstanceStats stats = registry.findStats(instances.get(i));
+                boolean unavailable = stats != null && !stats.isAvailable();
+                if (unavailable && available == null) {
+                    available = new ArrayList<>(instances.subList(0, i));
+                } else if (!unavailable && available != null) {
+                    available.add(instances.get(i));
+                }
+            }
+            // 全部不可用时（如驱逐后其他实例下线、健康检查全部失败）退回全部实例，避免服务不可用
+            List<ServiceInstance> availableInstances = available == null || available.isEmpty() ? view.getAll() : available;
+            Candidates previous = this.candidates;
+            if (previous != null && previous.source == view && previous.available.getAll().equals(availableInstances)) {
+                return previous;
+            }
+            Candidates candidates = new Candidates(view, view.subset(availableInstances));
+            this.candidates = candidates;
+            // 在锁内通知，同一服务的监听器按候选视图生成的顺序收到回调
+            for (ServiceInstanceListener listener : candidateListeners) {
+                try {
+                    listener.changeOnServiceInstances(serviceName, candidates.available);
+                } catch (Exception e) {
+                    log.error("candidate listener error, service: {}", serviceName, e);
+                }
+            }
+            return candidates;
+        }
+
+        /**
+         * 传入的视图可能已经被注册中心替换，优先使用最新的视图，服务已经没有实例时使用传入的视图
+         */
+        private ServiceInstanceView latest(ServiceInstanceView view) {
+            ServiceInstanceView latest = DynamicConfigManager.getInstance().getServiceInstanceView(serviceName);
+            return latest == null ? view : latest;
+        }
+
+        synchronized boolean tryEject(InstanceStats stats, String reason) {
+            RouteDefinition.OutlierDetectionConfig config = this.config;
+            ServiceInstanceView view = DynamicConfigManager.getInstance().getServiceInstanceView(serviceName);
+            if (config == null || view == null || stats.isEjected()) {
+                return false;
+            }
+            List<ServiceInstance> instances = view.getEnabled();
+            if (instances.isEmpty()) {
+                return false;
+            }
+            InstanceStatsRegistry registry = InstanceStatsRegistry.getInstance();
+            int ejected = 0;
+            int unavailable = 0;
+            for (ServiceInstance instance : instances) {
+                InstanceStats instanceStats = registry.findStats(instance);
+                if (instanceStats == null) {
+                    continue;
+                }
+                if (instanceStats.isEjected()) {
+                    ejected++;
+                }
+                if (!instanceStats.isAvailable()) {
+                    unavailable++;
+                }
+            }
+            int size = instances.size();
+            int maxEjected = Math.max(1, size * config.getMaxEjectionPercent() / 100);
+            // 不驱逐最后一个可用实例
+            if (ejected >= maxEjected || unavailable >= size - 1) {
+                log.warn("service {} instance {} is outlier ({}) but max ejection reached, ejected: {}/{}",
+                        serviceName, stats.getInstanceId(), reason, ejected, size);
+                return false;
+            }
+            // 驱逐时长 = 基础时长 * 2 ^ 之前的驱逐次数
+            int shift = Math.min(stats.getEjectionCount(), 20);
+            long duration = Math.min(config.getBaseEjectionTime() << shift,
+                    Math.max(config.getMaxEjectionTime(), config.getBaseEjectionTime()));
+            if (!stats.eject(System.currentTimeMillis() + duration)) {
+                return false;
+            }
+            log.warn("service {} instance {} ejected for {}ms ({}), ejection count: {}",
+                    serviceName, stats.getInstanceId(), duration, reason, stats.getEjectionCount());
+            refresh(view);
+            return true;
+        }
+
+        void detect(ServiceInstanceView view, long now) {
+            InstanceStatsRegistry registry = InstanceStatsRegistry.getInstance();
+            List<ServiceInstance> instances = view.getEnabled();
+            boolean changed = false;
+            int size = instances.size();
+            InstanceStats[] statsArray = new InstanceStats[size];
+            for (int i = 0; i < size; i++) {
+                InstanceStats stats = registry.findStats(instances.get(i));
+                statsArray[i] = stats;
+                if (stats == null) {
+                    // 还没有被选中过，没有需要检测的数据
+                    continue;
+                }
+                long until = stats.getEjectedUntil();
+                if (until != 0 && until <= now) {
+                    stats.unEject();
+                    changed = true;
+                    log.info("service {} instance {} un-ejected", serviceName, stats.getInstanceId());
+                } else if (until == 0) {
+                    stats.decayEjectionCount();
+                }
+            }
+            if (changed) {
+                refresh(view);
+            }
+            detectSuccessRate(statsArray);
+        }
+
+        private void detectSuccessRate(InstanceStats[] statsArray) {
+            RouteDefinition.OutlierDetectionConfig config = this.config;
+            // 每个周期都取走统计，未开启时也不累积
+            double[] rates = new double[statsArray.length];
+            int hosts = 0;
+            double sum = 0;
+            for (int i = 0; i < statsArray.length; i++) {
+                rates[i] = -1;
+                if (statsArray[i] == null) {
+                    continue;
+                }
+                long window = statsArray[i].takeOutcomeWindow();
+                long total = window >>> 32;
+                if (config != null && total > 0 && total >= config.getSuccessRateRequestVolume() && !statsArray[i].isEjected()) {
+                    rates[i] = (window & 0xFFFFFFFFL) / (double) total;
+                    sum += rates[i];
+                    hosts++;
+                }
+            }
+            if (config == null || !config.isEnabled() || config.getSuccessRateMinimumHosts() <= 0
+                    || hosts < config.getSuccessRateMinimumHosts()) {
+                return;
+            }
+            double mean = sum / hosts;
+            double variance = 0;
+            for (double rate : rates) {
+                if (rate >= 0) {
+                    variance += (rate - mean) * (rate - mean);
+                }
+            }
+            double threshold = mean - Math.sqrt(variance / hosts) * config.getSuccessRateStdevFactor();
+            for (int i = 0; i < statsArray.length; i++) {
+                if (rates[i] >= 0 && rates[i] < threshold) {
+                    tryEject(statsArray[i], String.format("success rate %.4f < %.4f", rates[i], threshold));
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.infinite.gateway.core.filter.loadbalance.stats;
+
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.infinite.gateway.common.constant.LoadBalanceConstant.PEAK_EWMA_DECAY_TIME;
+
+/**
+ * 单个服务实例的运行时统计，供负载均衡策略使用，所有状态都是无锁更新
+ */
+public class InstanceStats {
+
+    private static final double DECAY_NANOS = TimeUnit.MILLISECONDS.toNanos(PEAK_EWMA_DECAY_TIME);
+
+    @Getter
+    private final String instanceId;
+
+    /**
+     * 已选中但还没有完成的请求数
+     */
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    /**
+     * RTT 的峰值敏感滑动平均（纳秒），按 double 的位存储
+     */
+    private final AtomicLong peakEwmaCost = new AtomicLong(Double.doubleToRawLongBits(0));
+
+    /**
+     * 上一次更新 peakEwmaCost 的时间（纳秒）
+     */
+    private final AtomicLong peakEwmaStamp = new AtomicLong(System.nanoTime());
+
+    /**
+     * 连续失败次数，成功时清零
+     */
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    /**
+     * 当前统计周期内的请求结果：高 32 位为总数，低 32 位为成功数，合在一起保证周期结束时一次取走
+     */
+    private final AtomicLong outcomeWindow = new AtomicLong();
+
+    /**
+     * 驱逐到期时间（毫秒），0 表示未被驱逐
+     */
+    private final AtomicLong ejectedUntil = new AtomicLong();
+
+    /**
+     * 累计驱逐次数，决定下次驱逐时长；未被驱逐的统计周期内逐次递减
+     */
+    private final AtomicInteger ejectionCount = new AtomicInteger();
+
+    /**
+     * 主动健康检查的结果，未开启健康检查时始终为 true
+     */
+    private volatile boolean healthy = true;
+
+    public InstanceStats(String instanceId) {
+        this.instanceId = instanceId;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    /**
+     * 负载均衡选中该实例时调用
+     */
+    public void onSelected() {
+        inflight.incrementAndGet();
+    }
+
+    /**
+     * 下游请求结束（成功、失败、被降级）时调用，与 {@link #onSelected()} 一一对应
+     */
+    public void onCompleted() {
+        inflight.decrementAndGet();
+    }
+
+    /**
+     * 记录一次下游请求成功
+     */
+    public void onUpstreamSuccess() {
+        outcomeWindow.addAndGet((1L << 32) | 1);
+        if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+    }
+
+    /**
+     * 记录一次下游请求失败（5xx、连接失败、超时）
+     *
+     * @return 当前的连续失败次数
+     */
+    public int onUpstreamFailure() {
+        outcomeWindow.addAndGet(1L << 32);
+        return consecutiveFailures.incrementAndGet();
+    }
+
+    /**
+     * 取走当前统计周期的请求结果并开始新的周期，高 32 位为总数，低 32 位为成功数
+     */
+    public long takeOutcomeWindow() {
+        return outcomeWindow.getAndSet(0);
+    }
+
+    public boolean isEjected() {
+        return ejectedUntil.get() != 0;
+    }
+
+    public long getEjectedUntil() {
+        return ejectedUntil.get();
+    }
+
+    /**
+     * 驱逐实例，已经被驱逐时返回 false
+     *
+     * @return 本次是否驱逐成功
+     */
+    public boolean eject(long until) {
+        if (!ejectedUntil.compareAndSet(0, until)) {
+            return false;
+        }
+        ejectionCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * 驱逐到期，恢复接收流量
+     */
+    public void unEject() {
+        ejectedUntil.set(0);
+        consecutiveFailures.set(0);
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    public void setHealthy(boolean healthy) {
+        this.healthy = healthy;
+    }
+
+    /**
+     * 是否可以被负载均衡选中：健康检查通过并且没有被驱逐
+     */
+    public boolean isAvailable() {
+        return healthy && ejectedUntil.get() == 0;
+    }
+
+    public int getEjectionCount() {
+        return ejectionCount.get();
+    }
+
+    /**
+     * 一个统计周期内没有被驱逐，驱逐次数递减
+     */
+    public void decayEjectionCount() {
+        ejectionCount.updateAndGet(count -> count > 0 ? count - 1 : 0);
+    }
+
+    /**
+     * 记录一次下游请求的 RTT
+     * 比当前值大时直接取新值（对变慢立即敏感），否则按距离上次更新的时间做指数衰减平均
+     */
+    public void observeRtt(long rttNanos) {
+        long now = System.nanoTime();
+        // 每段时间间隔只被一次更新消费
+        long elapsed = Math.max(now - peakEwmaStamp.getAndSet(now), 0);
+        double weight = Math.exp(-elapsed / DECAY_NANOS);
+        long prevBits;
+        double next;
+        do {
+            prevBits = peakEwmaCost.get();
+            double prev = Double.longBitsToDouble(prevBits);
+            next = rttNanos > prev ? rttNanos : prev * weight + rttNanos * (1 - weight);
+        } while (!peakEwmaCost.compareAndSet(prevBits, Double.doubleToRawLongBits(next)));
+    }
+
+    /**
+     * 当前的 Peak-EWMA 值，读取时按空闲时间衰减，长时间没有请求的实例会逐渐恢复
+     */
+    public double getPeakEwmaCost() {
+        double cost = Double.longBitsToDouble(peakEwmaCost.get());
+        long elapsed = Math.max(System.nanoTime() - peakEwmaStamp.get(), 0);
+        return cost * Math.exp(-elapsed / DECAY_NANOS);
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.infinite.gateway.core.filter.loadbalance.stats;
+
+import com.infinite.gateway.common.pojo.ServiceInstance;
+import com.infinite.gateway.core.manager.DynamicConfigManager;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 服务实例运行时统计的注册表，实例下线时移除
+ * 已经在途的请求直接持有 InstanceStats 引用，移除后不受影响。
+ * 只为服务当前实例集合中的实例创建统计，旧的实例列表、检测和健康检查不会让已移除的统计重新出现
+ */
+public class InstanceStatsRegistry {
+
+    private static final InstanceStatsRegistry INSTANCE = new InstanceStatsRegistry();
+
+    private final ConcurrentHashMap<String /* 实例id */, InstanceStats> statsMap = new ConcurrentHashMap<>();
+
+    private InstanceStatsRegistry() {
+    }
+
+    public static InstanceStatsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 获取实例的统计，不存在时创建；实例已经不在服务当前的实例集合中（请求还持有旧列表）时返回不登记的统计
+     */
+    public InstanceStats getStats(ServiceInstance instance) {
+        String instanceId = instance.getInstanceId();
+        InstanceStats stats = statsMap.get(instanceId);
+        if (stats != null) {
+            return stats;
+        }
+        DynamicConfigManager manager = DynamicConfigManager.getInstance();
+        if (!manager.containsServiceInstance(instance.getServiceName(), instanceId)) {
+            return new InstanceStats(instanceId);
+        }
+        stats = statsMap.computeIfAbsent(instanceId, InstanceStats::new);
+        // DynamicConfigManager 先发布新的实例集合再移除统计，创建期间实例下线时这里再检查一次
+        if (!manager.containsServiceInstance(instance.getServiceName(), instanceId)) {
+            statsMap.remove(instanceId, stats);
+        }
+        return stats;
+    }
+
+    /**
+     * 只读查找实例的统计，不存在时返回 null
+     */
+    public InstanceStats findStats(ServiceInstance instance) {
+        return statsMap.get(instance.getInstanceId());
+    }
+
+    /**
+     * 移除已下线实例的统计
+     */
+    public void remove(Collection<String> instanceIds) {
+        instanceIds.forEach(statsMap::remove);
+    }
+
+}
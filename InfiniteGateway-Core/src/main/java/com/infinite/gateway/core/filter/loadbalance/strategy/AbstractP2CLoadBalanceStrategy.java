@@ -0,0 +1,53 @@
+package com.infinite.gateway.core.filter.loadbalance.strategy;
+
+import com.infinite.gateway.common.pojo.RouteDefinition;
+import com.infinite.gateway.common.pojo.ServiceInstance;
+import com.infinite.gateway.core.context.GatewayContext;
+import com.infinite.gateway.core.filter.loadbalance.stats.InstanceStats;
+import com.infinite.gateway.core.filter.loadbalance.stats.InstanceStatsRegistry;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 二选一（power of two choices）
+ * 随机取两个不同的实例，选择负载更低的那个，不需要遍历全部实例，也避免所有请求同时涌向同一个最空闲的实例
+ * 负载按有效权重（考虑慢启动）折算后再比较
+ */
+public abstract class AbstractP2CLoadBalanceStrategy implements LoadBalanceStrategy {
+
+    @Override
+    public ServiceInstance chooseInstance(GatewayContext gatewayContext,
+                                          List<ServiceInstance> instances,
+                                          RouteDefinition.LoadBalanceFilterConfig loadBalanceFilterConfig) {
+        int size = instances.size();
+        if (size == 1) {
+            return instances.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        // 第二个从剩下的 size - 1 个中取，保证两次不同
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = instances.get(first);
+        ServiceInstance b = instances.get(second);
+        InstanceStatsRegistry registry = InstanceStatsRegistry.getInstance();
+        long now = loadBalanceFilterConfig.getSlowStartWindow() > 0 ? System.currentTimeMillis() : 0;
+        double loadA = loadOf(a, registry.findStats(a)) / SlowStartHelper.effectiveWeight(a, loadBalanceFilterConfig, now);
+        double loadB = loadOf(b, registry.findStats(b)) / SlowStartHelper.effectiveWeight(b, loadBalanceFilterConfig, now);
+        return loadA <= loadB ? a : b;
+    }
+
+    private double loadOf(ServiceInstance instance, InstanceStats stats) {
+        // 还没有被选中过的实例没有统计，视为空闲
+        return stats == null ? 0 : load(instance, stats);
+    }
+
+    /**
+     * 实例当前未按权重折算的负载，越小越优先
+     */
+    protected abstract double load(ServiceInstance instance, InstanceStats stats);
+
+}
@@ -3,63 +3,110 @@ package com.infinite.gateway.core.filter.loadbalance.strategy;
 import com.infinite.gateway.common.pojo.RouteDefinition;
 import com.infinite.gateway.common.pojo.ServiceInstance;
 import com.infinite.gateway.core.context.GatewayContext;
-import com.infinite.gateway.core.manager.DynamicConfigManager;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
-import static com.infinite.gateway.common.constant.LoadBalanceConstant.ROUND_ROBIN_LOAD_BALANCE_STRATEGY;
+import static com.infinite.gateway.common.constant.LoadBalanceConstant.CLIENT_IP_CONSISTENT_HASH_LOAD_BALANCE_STRATEGY;
 
 public class ConsistentHashingLoadBalanceStrategy implements LoadBalanceStrategy {
 
-    private final ConcurrentHashMap<String/* 服务名 */, ConsistentHashing> ringMap = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String/* 负载均衡键 */, ConsistentHashing> ringMap = new ConcurrentHashMap<>();
 
     @Override
     public ServiceInstance chooseInstance(GatewayContext gatewayContext,
                                           List<ServiceInstance> instances,
                                           RouteDefinition.LoadBalanceFilterConfig config) {
-        String serviceName = gatewayContext.getRoute().getServiceName();
-        return ringMap.computeIfAbsent(serviceName, key -> {
-            DynamicConfigManager.getInstance().addRouteListener(serviceName, route -> ringMap.remove(serviceName));
-            return new ConsistentHashing(config.getVirtualNodeNum(), instances);
-        }).getNode(gatewayContext.getRequest().getClientIp());
+        String key = gatewayContext.getLoadBalanceKey();
+        ConsistentHashing ring = ringMap.get(key);
+        // 实例快照只在实例变化时替换，按引用判断即可；虚拟节点数变化时同样需要重建
+        if (ring == null || ring.instances != instances || ring.virtualNodeNum != config.getVirtualNodeNum()) {
+            ring = new ConsistentHashing(config.getVirtualNodeNum(), instances, ring);
+            ringMap.put(key, ring);
+        }
+        return ring.getNode(HashKeyResolver.resolve(gatewayContext, config));
+    }
+
+    @Override
+    public boolean isHashBased() {
+        return true;
     }
 
     @Override
     public String mark() {
-        return ROUND_ROBIN_LOAD_BALANCE_STRATEGY;
+        return CLIENT_IP_CONSISTENT_HASH_LOAD_BALANCE_STRATEGY;
     }
 
+    /**
+     * 哈希环：有序的虚拟节点哈希数组 + 对应下标的实例数组，查找时二分
+     */
     static class ConsistentHashing {
 
         private final int virtualNodeNum;
-        private final TreeMap<Integer /* 哈希值 */, ServiceInstance /* 实例 */> hashRing = new TreeMap<>();
 
-        public ConsistentHashing(int virtualNodeNum, List<ServiceInstance> instances) {
+        private final List<ServiceInstance> instances;
+
+        private final int[] hashes;
+
+        private final ServiceInstance[] nodes;
+
+        /**
+         * 每个实例的虚拟节点哈希，重建时沿用上一个环的结果，只为新增的实例计算
+         */
+        private final Map<String /* 实例id */, int[]> virtualNodeHashes;
+
+        public ConsistentHashing(int virtualNodeNum, List<ServiceInstance> instances, ConsistentHashing previous) {
             this.virtualNodeNum = virtualNodeNum;
-            for (ServiceInstance instance : instances) {
-                addNode(instance);
+            this.instances = instances;
+            boolean reuse = previous != null && previous.virtualNodeNum == virtualNodeNum;
+            this.virtualNodeHashes = new HashMap<>(instances.size() * 2);
+            // 高 32 位放哈希，低 32 位放实例下标，排序后即按哈希有序
+            long[] entries = new long[instances.size() * virtualNodeNum];
+            int n = 0;
+            for (int i = 0; i < instances.size(); i++) {
+                String instanceId = instances.get(i).getInstanceId();
+                int[] nodeHashes = reuse ? previous.virtualNodeHashes.get(instanceId) : null;
+                if (nodeHashes == null) {
+                    nodeHashes = computeVirtualNodeHashes(instanceId);
+                }
+                virtualNodeHashes.put(instanceId, nodeHashes);
+                for (int hash : nodeHashes) {
+                    entries[n++] = ((long) hash << 32) | i;
+                }
+            }
+            Arrays.sort(entries);
+            this.hashes = new int[entries.length];
+            this.nodes = new ServiceInstance[entries.length];
+            for (int i = 0; i < entries.length; i++) {
+                hashes[i] = (int) (entries[i] >>> 32);
+                nodes[i] = instances.get((int) entries[i]);
             }
         }
 
-        public void addNode(ServiceInstance instance) {
+        private int[] computeVirtualNodeHashes(String instanceId) {
+            int[] nodeHashes = new int[virtualNodeNum];
             for (int i = 0; i < virtualNodeNum; i++) {
-                String virtualNodeName = instance.getInstanceId() + "&&VN" + i;
-                int hash = getHash(virtualNodeName);
-                hashRing.put(hash, instance);
+                nodeHashes[i] = getHash(instanceId + "&&VN" + i);
             }
+            return nodeHashes;
         }
 
         public ServiceInstance getNode(String key) {
-            if (hashRing.isEmpty()) {
+            if (hashes.length == 0) {
                 return null;
             }
-            int hash = getHash(key);
-            SortedMap<Integer, ServiceInstance> tailMap = hashRing.tailMap(hash);
-            Integer target = tailMap.isEmpty() ? hashRing.firstKey() : tailMap.firstKey();
-            return hashRing.get(target);
+            int index = Arrays.binarySearch(hashes, getHash(key));
+            if (index < 0) {
+                // 顺时针找第一个不小于 key 哈希的虚拟节点，超过末尾时回到环首
+                index = -index - 1;
+                if (index == hashes.length) {
+                    index = 0;
+                }
+            }
+            return nodes[index];
         }
 
         private int getHash(String str) {
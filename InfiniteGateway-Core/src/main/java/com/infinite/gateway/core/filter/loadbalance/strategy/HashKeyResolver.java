@@ -0,0 +1,81 @@
+package com.infinite.gateway.core.filter.loadbalance.strategy;
+
+import com.infinite.gateway.common.enums.HashKeyEnum;
+import com.infinite.gateway.common.pojo.RouteDefinition;
+import com.infinite.gateway.core.context.GatewayContext;
+import com.infinite.gateway.core.request.GatewayRequest;
+import io.netty.handler.codec.http.cookie.Cookie;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 按配置取哈希类策略、灰度分桶的哈希键，取不到时退回客户端IP
+ */
+public class HashKeyResolver {
+
+    public static String resolve(GatewayContext context, RouteDefinition.LoadBalanceFilterConfig config) {
+        return resolve(context, config.getHashKey(), config.getHashKeyName());
+    }
+
+    public static String resolve(GatewayContext context, HashKeyEnum hashKey, String name) {
+        GatewayRequest request = context.getRequest();
+        String key = null;
+        if (hashKey != null && name != null && !name.isEmpty()) {
+            switch (hashKey) {
+                case HEADER -> key = request.getHeaders().get(name);
+                case COOKIE -> {
+                    Cookie cookie = request.getCookie(name);
+                    key = cookie == null ? null : cookie.value();
+                }
+                case PATH_VARIABLE -> key = pathSegment(request.getPath(), parseIndex(name));
+                default -> {
+                }
+            }
+        }
+        return key == null || key.isEmpty() ? request.getClientIp() : key;
+    }
+
+    /**
+     * 64 位 FNV-1a + murmur3 fmix64，只依赖输入的 UTF-8 字节，不同网关节点上结果一致
+     */
+    public static long hash64(String str) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : str.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static int parseIndex(String name) {
+        try {
+            return Integer.parseInt(name.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 取第 index 个路径段（从 0 开始，不含开头的 /）
+     */
+    private static String pathSegment(String path, int index) {
+        if (index < 0) {
+            return null;
+        }
+        int start = path.startsWith("/") ? 1 : 0;
+        for (int i = 0; i < index; i++) {
+            start = path.indexOf('/', start) + 1;
+            if (start == 0) {
+                return null;
+            }
+        }
+        int end = path.indexOf('/', start);
+        return path.substring(start, end < 0 ? path.length() : end);
+    }
+
+}
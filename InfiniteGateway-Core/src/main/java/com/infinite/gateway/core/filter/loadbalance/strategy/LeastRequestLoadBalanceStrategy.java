@@ -0,0 +1,25 @@
+package com.infinite.gateway.core.filter.loadbalance.strategy;
+
+import com.infinite.gateway.common.pojo.ServiceInstance;
+import com.infinite.gateway.core.filter.loadbalance.stats.InstanceStats;
+
+import static com.infinite.gateway.common.constant.LoadBalanceConstant.P2C_LEAST_REQUEST_LOAD_BALANCE_STRATEGY;
+
+/**
+ * 最少在途请求 + 二选一，选择按权重折算后在途请求更少的实例
+ */
+public class LeastRequestLoadBalanceStrategy extends AbstractP2CLoadBalanceStrategy {
+
+    /**
+     * +1 让权重在空闲时也能起作用
+     */
+    @Override
+    protected double load(ServiceInstance instance, InstanceStats stats) {
+        return stats.getInflight() + 1;
+    }
+
+    @Override
+    public String mark() {
+        return P2C_LEAST_REQUEST_LOAD_BALANCE_STRATEGY;
+    }
+}
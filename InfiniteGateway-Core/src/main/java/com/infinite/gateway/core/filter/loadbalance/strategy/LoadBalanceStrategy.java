@@ -14,4 +14,11 @@ public interface LoadBalanceStrategy {
 
     String mark();
 
+    /**
+     * 是否为哈希类策略，哈希类策略需要在完整的实例集合上选择以保持亲和性，不参与按可用区划分的子集选择
+     */
+    default boolean isHashBased() {
+        return false;
+    }
+
 }
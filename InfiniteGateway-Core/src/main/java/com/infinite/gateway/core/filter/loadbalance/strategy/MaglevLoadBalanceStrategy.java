@@ -0,0 +1,193 @@
+package com.infinite.gateway.core.filter.loadbalance.strategy;
+
+import com.infinite.gateway.common.pojo.RouteDefinition;
+import com.infinite.gateway.common.pojo.ServiceInstance;
+import com.infinite.gateway.core.context.GatewayContext;
+import com.infinite.gateway.core.filter.loadbalance.outlier.OutlierDetector;
+import com.infinite.gateway.core.manager.ServiceInstanceView;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.infinite.gateway.common.constant.LoadBalanceConstant.MAGLEV_LOAD_BALANCE_STRATEGY;
+import static com.infinite.gateway.common.constant.LoadBalanceConstant.MAGLEV_TABLE_SIZE;
+
+/**
+ * Maglev 一致性哈希
+ *
+ * 每个实例按自身哈希得到一个槽位排列，各实例按权重轮流占用排列中第一个空槽，直到填满固定大小的查找表。
+ * 选择时直接用哈希键对表大小取模，O(1)；实例增减时大部分槽位保持不变，分布也接近均匀。
+ *
+ * 查找表只由后台的单个构建线程生成和替换，不在请求路径上构建：
+ * 1. 候选视图（实例变化、驱逐、健康状态变化后）重新生成时，按顺序为该服务已有的每个负载均衡键（非灰度、灰度、元数据子集）重建
+ * 2. 请求发现查找表缺失或与候选实例不一致时提交一次构建，构建时读取服务当前的候选视图
+ * 构建线程按提交顺序执行，并且总是按构建时最新的候选视图生成，不会用旧的实例列表覆盖新的查找表。
+ * 查找表就绪之前按加权 rendezvous 哈希在当前候选实例中选择，O(实例数)
+ */
+@Slf4j
+public class MaglevLoadBalanceStrategy implements LoadBalanceStrategy {
+
+    private final ConcurrentHashMap<String /* 负载均衡键 */, MaglevTable> tableMap = new ConcurrentHashMap<>();
+
+    /**
+     * 已经提交、还没有执行的构建，避免查找表就绪前每个请求都提交一次
+     */
+    private final Set<String /* 负载均衡键 */> pendingKeys = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(
+            new DefaultThreadFactory("maglev-table-builder", true));
+
+    public MaglevLoadBalanceStrategy() {
+        OutlierDetector.getInstance().addCandidateListener((serviceName, view) ->
+                builder.execute(() -> rebuildService(serviceName, view)));
+    }
+
+    @Override
+    public ServiceInstance chooseInstance(GatewayContext gatewayContext,
+                                          List<ServiceInstance> instances,
+                                          RouteDefinition.LoadBalanceFilterConfig config) {
+        String key = gatewayContext.getLoadBalanceKey();
+        String hashKey = HashKeyResolver.resolve(gatewayContext, config);
+        MaglevTable table = tableMap.get(key);
+        // 候选列表只在候选视图变化时替换，按引用判断即可
+        if (table != null && table.instances == instances) {
+            return table.get(hashKey);
+        }
+        String serviceName = gatewayContext.getRoute().getServiceName();
+        if (pendingKeys.add(key)) {
+            builder.execute(() -> {
+                pendingKeys.remove(key);
+                ServiceInstanceView view = OutlierDetector.getInstance().getCandidateView(serviceName);
+                if (view != null) {
+                    rebuild(serviceName, key, view);
+                }
+            });
+        }
+        return rendezvous(hashKey, instances);
+    }
+
+    /**
+     * 在构建线程中执行：候选视图变化后重建该服务的所有查找表
+     */
+    private void rebuildService(String serviceName, ServiceInstanceView view) {
+        for (Map.Entry<String, MaglevTable> entry : tableMap.entrySet()) {
+            if (entry.getValue().serviceName.equals(serviceName)) {
+                rebuild(serviceName, entry.getKey(), view);
+            }
+        }
+    }
+
+    /**
+     * 在构建线程中执行：按候选视图中负载均衡键对应的实例重建查找表，实例列表没有变化时不重建
+     */
+    private void rebuild(String serviceName, String key, ServiceInstanceView view) {
+        try {
+            List<ServiceInstance> instances = view.candidatesOf(key);
+            if (instances == null || instances.isEmpty()) {
+                tableMap.remove(key);
+                return;
+            }
+            MaglevTable table = tableMap.get(key);
+            if (table == null || table.instances != instances) {
+                tableMap.put(key, new MaglevTable(serviceName, instances));
+            }
+        } catch (Exception e) {
+            log.error("build maglev table error, key: {}", key, e);
+        }
+    }
+
+    /**
+     * 加权 rendezvous 哈希：每个实例按 哈希键 与 实例id 的组合哈希打分，取分数最高的实例，score = weight / -ln(u)
+     */
+    private static ServiceInstance rendezvous(String hashKey, List<ServiceInstance> instances) {
+        long keyHash = HashKeyResolver.hash64(hashKey);
+        ServiceInstance best = null;
+        double bestScore = -1;
+        for (ServiceInstance instance : instances) {
+            long hash = HashKeyResolver.hash64(instance.getInstanceId()) ^ keyHash;
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            // 取高 53 位映射到 (0, 1)
+            double u = ((hash >>> 11) + 1) * 0x1.0p-53;
+            double score = Math.max(instance.getWeight(), 1) / -Math.log(u);
+            if (score > bestScore) {
+                bestScore = score;
+                best = instance;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public boolean isHashBased() {
+        return true;
+    }
+
+    @Override
+    public String mark() {
+        return MAGLEV_LOAD_BALANCE_STRATEGY;
+    }
+
+    static class MaglevTable {
+
+        private final String serviceName;
+
+        private final List<ServiceInstance> instances;
+
+        private final ServiceInstance[] table;
+
+        MaglevTable(String serviceName, List<ServiceInstance> instances) {
+            this.serviceName = serviceName;
+            this.instances = instances;
+            long start = System.nanoTime();
+            int size = instances.size();
+            int tableSize = MAGLEV_TABLE_SIZE;
+            long[] offsets = new long[size];
+            long[] skips = new long[size];
+            long[] next = new long[size];
+            int[] weights = new int[size];
+            int maxWeight = 1;
+            for (int i = 0; i < size; i++) {
+                ServiceInstance instance = instances.get(i);
+                long hash = HashKeyResolver.hash64(instance.getInstanceId());
+                offsets[i] = Long.remainderUnsigned(hash, tableSize);
+                skips[i] = Long.remainderUnsigned(hash >>> 32 ^ hash * 0x9E3779B97F4A7C15L, tableSize - 1) + 1;
+                weights[i] = Math.max(instance.getWeight(), 1);
+                maxWeight = Math.max(maxWeight, weights[i]);
+            }
+
+            table = new ServiceInstance[tableSize];
+            int[] credits = new int[size];
+            int filled = 0;
+            while (filled < tableSize) {
+                for (int i = 0; i < size && filled < tableSize; i++) {
+                    // 加权：每轮累加权重，攒够最大权重才能占一个槽
+                    credits[i] += weights[i];
+                    if (credits[i] < maxWeight) {
+                        continue;
+                    }
+                    credits[i] -= maxWeight;
+                    int slot;
+                    do {
+                        slot = (int) ((offsets[i] + next[i] * skips[i]) % tableSize);
+                        next[i]++;
+                    } while (table[slot] != null);
+                    table[slot] = instances.get(i);
+                    filled++;
+                }
+            }
+            log.debug("maglev table built, instances={}, cost={}us", size, (System.nanoTime() - start) / 1000);
+        }
+
+        ServiceInstance get(String key) {
+            return table[(int) Long.remainderUnsigned(HashKeyResolver.hash64(key), table.length)];
+        }
+    }
+}
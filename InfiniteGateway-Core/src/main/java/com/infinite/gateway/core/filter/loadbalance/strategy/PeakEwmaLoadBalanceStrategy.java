@@ -0,0 +1,30 @@
+package com.infinite.gateway.core.filter.loadbalance.strategy;
+
+import com.infinite.gateway.common.pojo.ServiceInstance;
+import com.infinite.gateway.core.filter.loadbalance.stats.InstanceStats;
+
+import static com.infinite.gateway.common.constant.LoadBalanceConstant.PEAK_EWMA_LOAD_BALANCE_STRATEGY;
+
+/**
+ * Peak-EWMA + 二选一
+ * 负载 = 实例的 RTT 峰值敏感滑动平均 * (在途请求数 + 1)，同时考虑实例的响应速度和排队情况
+ */
+public class PeakEwmaLoadBalanceStrategy extends AbstractP2CLoadBalanceStrategy {
+
+    /**
+     * 还没有 RTT 样本但已经有在途请求的实例的惩罚值，避免新实例在第一个响应回来之前被大量选中
+     */
+    private static final double PENALTY = (double) (Long.MAX_VALUE >> 16);
+
+    @Override
+    protected double load(ServiceInstance instance, InstanceStats stats) {
+        double cost = stats.getPeakEwmaCost();
+        int inflight = stats.getInflight();
+        return cost == 0 && inflight > 0 ? PENALTY + inflight : cost * (inflight + 1);
+    }
+
+    @Override
+    public String mark() {
+        return PEAK_EWMA_LOAD_BALANCE_STRATEGY;
+    }
+}
@@ -0,0 +1,48 @@
+package com.infinite.gateway.core.filter.loadbalance.strategy;
+
+import com.infinite.gateway.common.pojo.RouteDefinition;
+import com.infinite.gateway.common.pojo.ServiceInstance;
+
+/**
+ * 慢启动：新实例在慢启动时长内有效权重按曲线从最小比例增长到配置的权重
+ * 上线时间由 DynamicConfigManager 在发现实例时记录在 ServiceInstance.registerTime 中，这里只做一次减法和乘方
+ */
+public class SlowStartHelper {
+
+    /**
+     * 有效权重比例，(0, 1]
+     *
+     * @param now 当前时间戳（毫秒），由调用方取一次后复用
+     */
+    public static double weightFactor(ServiceInstance instance, RouteDefinition.LoadBalanceFilterConfig config, long now) {
+        long window = config.getSlowStartWindow();
+        long registerTime = instance.getRegisterTime();
+        if (window <= 0 || registerTime <= 0) {
+            return 1.0;
+        }
+        long elapsed = now - registerTime;
+        if (elapsed >= window) {
+            return 1.0;
+        }
+        double progress = Math.max(elapsed, 0) / (double) window;
+        double aggression = config.getSlowStartAggression() > 0 ? config.getSlowStartAggression() : 1.0;
+        double factor = aggression == 1.0 ? progress : Math.pow(progress, 1 / aggression);
+        return Math.max(factor, Math.min(Math.max(config.getSlowStartMinWeightPercent(), 1), 100) / 100.0);
+    }
+
+    /**
+     * 实例是否还在慢启动期内
+     */
+    public static boolean inSlowStart(ServiceInstance instance, RouteDefinition.LoadBalanceFilterConfig config, long now) {
+        return config.getSlowStartWindow() > 0 && instance.getRegisterTime() > 0
+                && now - instance.getRegisterTime() < config.getSlowStartWindow();
+    }
+
+    /**
+     * 考虑慢启动后的有效权重
+     */
+    public static double effectiveWeight(ServiceInstance instance, RouteDefinition.LoadBalanceFilterConfig config, long now) {
+        return Math.max(instance.getWeight(), 1) * weightFactor(instance, config, now);
+    }
+
+}
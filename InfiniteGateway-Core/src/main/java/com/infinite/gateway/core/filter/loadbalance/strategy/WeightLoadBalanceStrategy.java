@@ -4,29 +4,224 @@ import com.infinite.gateway.common.pojo.RouteDefinition;
 import com.infinite.gateway.common.pojo.ServiceInstance;
 import com.infinite.gateway.core.context.GatewayContext;
 
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.infinite.gateway.common.constant.LoadBalanceConstant.WEIGHT_LOAD_BALANCE_STRATEGY;
 
+/**
+ * 平滑加权轮询（nginx smooth weighted round-robin）
+ *
+ * 实例集合变化时按 nginx 的算法预先算出一整轮的选择序列，之后每次选择只是游标自增取序列中的下一个，
+ * 不加锁也不分配对象，并且权重高的实例被均匀地穿插在序列中，不会连续突发
+ * 有实例处于慢启动期时按有效权重生成长度约为 SLOW_START_SEQUENCE_LENGTH 的短序列，并每隔 SLOW_START_REFRESH_INTERVAL
+ * 由一个线程重新生成一次，重新生成期间其余线程继续使用旧序列，新序列从旧序列的游标处继续，请求量低时也能轮到序列后部的实例。
+ * 实例列表变化时在 compute 中生成，同一个键同时只有一个线程生成；请求可能还持有旧的实例列表，
+ * 只有候选视图版本号不小于当前序列的请求才会替换序列，不会用旧列表覆盖新序列
+ */
 public class WeightLoadBalanceStrategy implements LoadBalanceStrategy {
+
+    /**
+     * 一轮序列的最大长度，权重之和超过时按比例缩小权重
+     */
+    private static final int MAX_SEQUENCE_LENGTH = 1 << 16;
+
+    /**
+     * 慢启动期间重新计算有效权重的间隔（毫秒）
+     */
+    private static final long SLOW_START_REFRESH_INTERVAL = 1000;
+
+    /**
+     * 慢启动期间一轮序列的长度，有效权重按比例折算到该总和，重新生成的开销与实例数成正比
+     */
+    private static final int SLOW_START_SEQUENCE_LENGTH = 1000;
+
+    private final Map<String /* 服务名或实例子集 */, Schedule> scheduleMap = new ConcurrentHashMap<>();
+
     @Override
     public ServiceInstance chooseInstance(GatewayContext gatewayContext,
                                           List<ServiceInstance> instances,
-                                          RouteDefinition.LoadBalanceFilterConfig routeDefinition) {
-        int sum = instances.stream().mapToInt(ServiceInstance::getWeight).sum();
-        int random = new Random().nextInt(sum);
-        for (ServiceInstance instance : instances) {
-            random -= instance.getWeight();
-            if (random < 0) {
-                return instance;
+                                          RouteDefinition.LoadBalanceFilterConfig loadBalanceFilterConfig) {
+        String key = gatewayContext.getLoadBalanceKey();
+        long version = gatewayContext.getInstanceVersion();
+        Schedule schedule = scheduleMap.get(key);
+        // 实例快照只在实例变化时替换，按引用判断即可
+        if (schedule == null || schedule.instances != instances
+                || schedule.slowStartWindow != loadBalanceFilterConfig.getSlowStartWindow()) {
+            schedule = scheduleMap.compute(key, (k, current) ->
+                    needRebuild(current, instances, version, loadBalanceFilterConfig)
+                            ? new Schedule(instances, version, loadBalanceFilterConfig, 0) : current);
+        } else if (schedule.refreshAt != Long.MAX_VALUE && System.currentTimeMillis() >= schedule.refreshAt
+                && schedule.refreshing.compareAndSet(false, true)) {
+            // 慢启动期间的定时刷新只由抢到的线程执行，其余线程继续使用旧序列；期间序列已被替换时不再覆盖
+            Schedule refreshed = new Schedule(schedule.instances, schedule.version, loadBalanceFilterConfig,
+                    schedule.cursor.get());
+            if (scheduleMap.replace(key, schedule, refreshed)) {
+                schedule = refreshed;
             }
         }
-        return null;
+        return schedule.next();
+    }
+
+    /**
+     * 其他线程已经按同一列表生成过，或者当前序列来自更新的候选视图时不重新生成
+     */
+    private static boolean needRebuild(Schedule current, List<ServiceInstance> instances, long version,
+                                       RouteDefinition.LoadBalanceFilterConfig config) {
+        if (current == null) {
+            return true;
+        }
+        if (current.instances == instances) {
+            return current.slowStartWindow != config.getSlowStartWindow();
+        }
+        return version > current.version;
     }
 
     @Override
     public String mark() {
         return WEIGHT_LOAD_BALANCE_STRATEGY;
     }
+
+    private static class Schedule {
+
+        private final List<ServiceInstance> instances;
+
+        /**
+         * 实例列表所属候选视图的版本号
+         */
+        private final long version;
+
+        private final long slowStartWindow;
+
+        /**
+         * 序列需要重新生成的时间，没有实例处于慢启动期时为 Long.MAX_VALUE
+         */
+        private final long refreshAt;
+
+        private final ServiceInstance[] sequence;
+
+        private final AtomicInteger cursor;
+
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        /**
+         * @param cursor 起始游标，慢启动刷新时沿用旧序列的游标
+         */
+        Schedule(List<ServiceInstance> instances, long version, RouteDefinition.LoadBalanceFilterConfig config,
+                 int cursor) {
+            this.instances = instances;
+            this.version = version;
+            this.cursor = new AtomicInteger(cursor);
+            this.slowStartWindow = config.getSlowStartWindow();
+            long now = System.currentTimeMillis();
+            boolean slowStart = false;
+            for (ServiceInstance instance : instances) {
+                if (SlowStartHelper.inSlowStart(instance, config, now)) {
+                    slowStart = true;
+                    break;
+                }
+            }
+            this.refreshAt = slowStart ? now + SLOW_START_REFRESH_INTERVAL : Long.MAX_VALUE;
+            this.sequence = buildSequence(instances, slowStart ? config : null, now);
+        }
+
+        ServiceInstance next() {
+            // 溢出后取绝对值的结果不连续，这里用无符号取模
+            return sequence[Integer.remainderUnsigned(cursor.getAndIncrement(), sequence.length)];
+        }
+
+        /**
+         * @param slowStartConfig 有实例处于慢启动期时传入，按有效权重生成序列
+         */
+        private static ServiceInstance[] buildSequence(List<ServiceInstance> instances,
+                                                       RouteDefinition.LoadBalanceFilterConfig slowStartConfig,
+                                                       long now) {
+            int size = instances.size();
+            int[] weights = new int[size];
+            long total = 0;
+            for (int i = 0; i < size; i++) {
+                weights[i] = Math.max(instances.get(i).getWeight(), 0);
+                total += weights[i];
+            }
+            if (slowStartConfig != null && total > 0) {
+                total = applySlowStart(instances, weights, slowStartConfig, now);
+            }
+            if (total == 0) {
+                // 全部未设置权重时按等权处理
+                Arrays.fill(weights, 1);
+            } else if (total > MAX_SEQUENCE_LENGTH) {
+                // 按比例缩小，权重大于 0 的实例至少保留 1
+                for (int i = 0; i < size; i++) {
+                    if (weights[i] > 0) {
+                        weights[i] = (int) Math.max(1, (long) weights[i] * MAX_SEQUENCE_LENGTH / total);
+                    }
+                }
+            }
+            // 除以最大公约数，缩短一轮的长度
+            int gcd = 0;
+            for (int weight : weights) {
+                gcd = gcd(gcd, weight);
+            }
+            total = 0;
+            for (int i = 0; i < size; i++) {
+                weights[i] /= gcd;
+                total += weights[i];
+            }
+
+            // nginx 算法：每一步所有实例的 current 加上自身权重，选 current 最大的，并将其减去总权重
+            ServiceInstance[] sequence = new ServiceInstance[(int) total];
+            long[] current = new long[size];
+            for (int n = 0; n < total; n++) {
+                int best = -1;
+                for (int i = 0; i < size; i++) {
+                    current[i] += weights[i];
+                    if (weights[i] > 0 && (best < 0 || current[i] > current[best])) {
+                        best = i;
+                    }
+                }
+                current[best] -= total;
+                sequence[n] = instances.get(best);
+            }
+            return sequence;
+        }
+
+        /**
+         * 按有效权重折算到总和约为 SLOW_START_SEQUENCE_LENGTH，权重大于 0 的实例至少保留 1
+         *
+         * @return 折算后的权重之和
+         */
+        private static long applySlowStart(List<ServiceInstance> instances, int[] weights,
+                                           RouteDefinition.LoadBalanceFilterConfig slowStartConfig, long now) {
+            double[] effective = new double[weights.length];
+            double effectiveTotal = 0;
+            for (int i = 0; i < weights.length; i++) {
+                if (weights[i] > 0) {
+                    effective[i] = weights[i] * SlowStartHelper.weightFactor(instances.get(i), slowStartConfig, now);
+                    effectiveTotal += effective[i];
+                }
+            }
+            // weightFactor 不小于 1%，权重之和大于 0 时 effectiveTotal 也大于 0
+            long total = 0;
+            for (int i = 0; i < weights.length; i++) {
+                if (weights[i] > 0) {
+                    weights[i] = (int) Math.max(1, Math.round(effective[i] / effectiveTotal * SLOW_START_SEQUENCE_LENGTH));
+                    total += weights[i];
+                }
+            }
+            return total;
+        }
+
+        private static int gcd(int a, int b) {
+            while (b != 0) {
+                int t = a % b;
+                a = b;
+                b = t;
+            }
+            return a;
+        }
+    }
 }
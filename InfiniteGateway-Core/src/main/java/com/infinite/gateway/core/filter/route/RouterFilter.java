@@ -5,9 +5,14 @@ import com.infinite.gateway.common.pojo.RouteDefinition;
 import com.infinite.gateway.core.context.GatewayContext;
 import com.infinite.gateway.core.executor.BizExecutorManager;
 import com.infinite.gateway.core.filter.Filter;
+import com.infinite.gateway.core.filter.loadbalance.outlier.OutlierDetector;
+import com.infinite.gateway.core.filter.loadbalance.stats.InstanceStats;
 import com.infinite.gateway.core.filter.route.resilience.Resilience;
+import com.infinite.gateway.core.helper.CompressionHelper;
+import com.infinite.gateway.core.helper.RequestHelper;
 import com.infinite.gateway.core.helper.ResponseHelper;
 import com.infinite.gateway.core.http.HttpClient;
+import io.netty.buffer.ByteBuf;
 import org.asynchttpclient.Request;
 import org.asynchttpclient.Response;
 
@@ -21,23 +26,33 @@ import static com.infinite.gateway.common.constant.FilterConstant.ROUTE_FILTER_O
 public class RouterFilter implements Filter {
     @Override
     public void doPreFilter(GatewayContext context) {
+        // 在发出请求之前取走选中实例的统计：熔断打开时降级可能同步写回并回收 context
+        InstanceStats upstreamStats = context.takeUpstreamStats();
         RouteDefinition.ResilienceConfig resilienceConfig = context.getRoute().getResilienceConfig();
-        if (resilienceConfig != null && resilienceConfig.isEnabled()) {
-            resilienceRoute(context);
-        } else {
-            route(context);
+        try {
+            if (resilienceConfig != null && resilienceConfig.isEnabled()) {
+                resilienceRoute(context, upstreamStats);
+            } else {
+                route(context, upstreamStats);
+            }
+        } catch (RuntimeException e) {
+            // 请求没能发出
+            if (upstreamStats != null) {
+                upstreamStats.onCompleted();
+            }
+            throw e;
         }
     }
 
-    private void resilienceRoute(GatewayContext context) {
-        Supplier<CompletionStage<Response>> supplier = buildRouteSupplier(context);
+    private void resilienceRoute(GatewayContext context, InstanceStats upstreamStats) {
+        Supplier<CompletionStage<Response>> supplier = buildRouteSupplier(context, upstreamStats);
         CompletionStage<Response> responseStage = Resilience.getInstance().build(context, supplier).get();
-        handleResponseAsync(context, responseStage);
+        handleResponseAsync(context, responseStage, upstreamStats);
     }
 
-    private void route(GatewayContext context) {
-        CompletionStage<Response> responseStage = buildRouteSupplier(context).get();
-        handleResponseAsync(context, responseStage);
+    private void route(GatewayContext context, InstanceStats upstreamStats) {
+        CompletionStage<Response> responseStage = buildRouteSupplier(context, upstreamStats).get();
+        handleResponseAsync(context, responseStage, upstreamStats);
     }
 
     /**
@@ -49,14 +64,23 @@ public class RouterFilter implements Filter {
      *
      * 这样保证了：业务逻辑在业务线程池，IO操作在EventLoop，线程边界清晰
      */
-    private void handleResponseAsync(GatewayContext context, CompletionStage<Response> responseStage) {
+    private void handleResponseAsync(GatewayContext context, CompletionStage<Response> responseStage,
+                                     InstanceStats upstreamStats) {
         // 获取业务线程池（用于执行后续过滤器链等业务逻辑）
         ThreadPoolExecutor bizExecutor = BizExecutorManager.getInstance().getBizThreadPoolExecutor();
+        // 下游请求（包括重试、降级）结束时扣减选中实例的在途请求数
+        if (upstreamStats != null) {
+            responseStage = responseStage.whenComplete((response, throwable) -> upstreamStats.onCompleted());
+        }
         responseStage.whenCompleteAsync((response, throwable) -> {
             if (throwable != null) {
                 context.setThrowable(throwable);
                 throw new RuntimeException(throwable);  // 抛出异常，让 exceptionallyAsync 处理
             }
+            if (response == null) {
+                // 熔断降级已经写回了响应，上下文可能已被回收，不能再访问
+                return;
+            }
             // 构建网关响应
             context.setResponse(ResponseHelper.buildGatewayResponse(response));
             // 继续执行过滤器链
@@ -70,9 +94,40 @@ public class RouterFilter implements Filter {
         }, bizExecutor);
     }
 
-    private Supplier<CompletionStage<Response>> buildRouteSupplier(GatewayContext context) {
-        Request request = context.getRequest().buildUrl();
-        return () -> HttpClient.getInstance().executeRequest(request);
+    /**
+     * 下游请求在这里才构建，被限流等前置过滤器拒绝的请求不会产生这部分开销
+     *
+     * 下游请求体直接引用客户端请求的缓冲区，每次发送（包括重试）各自持有一次引用，发送结束后释放，
+     * 客户端请求本身在响应写回后释放
+     *
+     * 每次发送（包括重试）的 RTT 都会记录到选中实例的 Peak-EWMA 中，结果（5xx、连接失败、超时视为失败）用于异常实例检测
+     */
+    private Supplier<CompletionStage<Response>> buildRouteSupplier(GatewayContext context, InstanceStats upstreamStats) {
+        // 根据路由的压缩策略决定是否把 Accept-Encoding 透传给下游
+        CompressionHelper.prepareUpstreamRequest(context.getRoute(), context.getRequest());
+        Request request = RequestHelper.buildHttpClientRequest(context.getRequest());
+        ByteBuf content = context.getRequest().getFullHttpRequest().content();
+        // 回调中 context 可能已经被回收，这里先取出来
+        String serviceName = context.getRoute().getServiceName();
+        RouteDefinition.OutlierDetectionConfig outlierDetectionConfig = context.getRoute().getOutlierDetectionConfig();
+        return () -> {
+            content.retain();
+            long startNanos = System.nanoTime();
+            try {
+                return HttpClient.getInstance().executeRequest(request)
+                        .whenComplete((response, throwable) -> {
+                            content.release();
+                            if (upstreamStats != null) {
+                                upstreamStats.observeRtt(System.nanoTime() - startNanos);
+                                boolean success = throwable == null && response.getStatusCode() < 500;
+                                OutlierDetector.getInstance().report(serviceName, upstreamStats, success, outlierDetectionConfig);
+                            }
+                        });
+            } catch (RuntimeException e) {
+                content.release();
+                throw e;
+            }
+        };
     }
 
     @Override
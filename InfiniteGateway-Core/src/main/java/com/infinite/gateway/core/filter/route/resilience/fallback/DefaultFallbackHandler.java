@@ -9,7 +9,7 @@ public class DefaultFallbackHandler implements FallbackHandler {
     public void handle(GatewayContext context, Throwable throwable) {
         String serviceName = context.getRoute().getServiceName();
         if (context.getRoute().getResilienceConfig().isFallbackEnabled()) {
-            context.setResponse(ResponseHelper.buildGatewayResponse(String.format("服务 %s 触发熔断降级", serviceName)));
+            context.setResponse(ResponseHelper.buildFallbackGatewayResponse(serviceName));
             context.writeBackResponse();
         }
     }
@@ -0,0 +1,181 @@
+package com.infinite.gateway.core.helper;
+
+import com.infinite.gateway.common.pojo.RouteDefinition;
+import com.infinite.gateway.core.request.GatewayRequest;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 响应压缩策略
+ *
+ * 1. 透传：把客户端的 Accept-Encoding 转发给下游，下游压缩后的响应体不解压、原样返回，避免"解压再压缩"的往返开销
+ * 2. 边缘压缩：下游返回未压缩内容时，由网关按路由配置的级别和最小阈值进行压缩
+ *
+ * Deflater 持有较大的本地内存且创建代价高，这里按线程复用，每次压缩前 reset
+ */
+public class CompressionHelper {
+
+    private static final String GZIP = HttpHeaderValues.GZIP.toString();
+
+    private static final String DEFLATE = HttpHeaderValues.DEFLATE.toString();
+
+    /**
+     * gzip 头：ID1 ID2 CM FLG MTIME(4) XFL OS
+     */
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private static final ThreadLocal<Deflater> GZIP_DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+
+    private static final ThreadLocal<Deflater> ZLIB_DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, false));
+
+    private static final ThreadLocal<CRC32> CRC = ThreadLocal.withInitial(CRC32::new);
+
+    /**
+     * 转发给下游前处理 Accept-Encoding
+     * 关闭透传时记录客户端原始的 Accept-Encoding 供边缘压缩使用，并要求下游返回未压缩的内容
+     */
+    public static void prepareUpstreamRequest(RouteDefinition route, GatewayRequest request) {
+        RouteDefinition.CompressionConfig config = route.getCompressionConfig();
+        if (config == null || config.isPassthrough()) {
+            return;
+        }
+        HttpHeaders headers = request.getHeaders();
+        request.setAcceptEncoding(headers.get(HttpHeaderNames.ACCEPT_ENCODING));
+        headers.remove(HttpHeaderNames.ACCEPT_ENCODING);
+    }
+
+    /**
+     * 必要时在网关边缘压缩响应体
+     *
+     * @param route 路由
+     * @param request 网关请求
+     * @param httpResponse 即将写回客户端的响应
+     * @param alloc 分配器
+     * @return 压缩后的响应，不需要压缩时返回原响应
+     */
+    public static FullHttpResponse compressIfNecessary(RouteDefinition route, GatewayRequest request,
+                                                       FullHttpResponse httpResponse, ByteBufAllocator alloc) {
+        RouteDefinition.CompressionConfig config = route == null ? null : route.getCompressionConfig();
+        if (config == null || !config.isEnabled()) {
+            return httpResponse;
+        }
+        HttpHeaders headers = httpResponse.headers();
+        ByteBuf content = httpResponse.content();
+        // 已经压缩过（下游透传）或者体积太小的不再压缩
+        if (headers.contains(HttpHeaderNames.CONTENT_ENCODING)
+                || content.readableBytes() < Math.max(config.getMinResponseSize(), 1)
+                || !isCompressible(headers.get(HttpHeaderNames.CONTENT_TYPE))) {
+            return httpResponse;
+        }
+        String acceptEncoding = request.getAcceptEncoding() != null
+                ? request.getAcceptEncoding() : request.getHeaders().get(HttpHeaderNames.ACCEPT_ENCODING);
+        String encoding = selectEncoding(acceptEncoding);
+        if (encoding == null) {
+            return httpResponse;
+        }
+        int level = Math.min(Math.max(config.getLevel(), Deflater.BEST_SPEED), Deflater.BEST_COMPRESSION);
+        ByteBuf compressed = GZIP.equals(encoding) ? gzip(content, level, alloc) : deflate(content, level, alloc);
+        FullHttpResponse compressedResponse = httpResponse.replace(compressed);
+        httpResponse.release();
+        HttpHeaders compressedHeaders = compressedResponse.headers();
+        compressedHeaders.set(HttpHeaderNames.CONTENT_ENCODING, encoding);
+        compressedHeaders.set(HttpHeaderNames.CONTENT_LENGTH, compressed.readableBytes());
+        compressedHeaders.remove(HttpHeaderNames.TRANSFER_ENCODING);
+        compressedHeaders.add(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT_ENCODING);
+        return compressedResponse;
+    }
+
+    private static ByteBuf gzip(ByteBuf content, int level, ByteBufAllocator alloc) {
+        ByteBuffer input = content.nioBuffer();
+        CRC32 crc = CRC.get();
+        crc.reset();
+        crc.update(input.duplicate());
+
+        ByteBuf out = alloc.heapBuffer(content.readableBytes() / 2 + GZIP_HEADER.length + 8);
+        out.writeBytes(GZIP_HEADER);
+        doDeflate(GZIP_DEFLATER.get(), level, input, out);
+        out.writeIntLE((int) crc.getValue());
+        out.writeIntLE(content.readableBytes());
+        return out;
+    }
+
+    private static ByteBuf deflate(ByteBuf content, int level, ByteBufAllocator alloc) {
+        ByteBuf out = alloc.heapBuffer(content.readableBytes() / 2 + 16);
+        doDeflate(ZLIB_DEFLATER.get(), level, content.nioBuffer(), out);
+        return out;
+    }
+
+    private static void doDeflate(Deflater deflater, int level, ByteBuffer input, ByteBuf out) {
+        deflater.reset();
+        deflater.setLevel(level);
+        deflater.setInput(input);
+        deflater.finish();
+        while (!deflater.finished()) {
+            out.ensureWritable(4096);
+            int written = deflater.deflate(out.array(), out.arrayOffset() + out.writerIndex(), out.writableBytes());
+            out.writerIndex(out.writerIndex() + written);
+        }
+    }
+
+    /**
+     * 按客户端 Accept-Encoding 选择编码，优先 gzip，q=0 表示明确拒绝
+     */
+    private static String selectEncoding(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return null;
+        }
+        boolean deflate = false;
+        for (String token : acceptEncoding.split(",")) {
+            String value = token.trim();
+            String coding = value;
+            int paramIndex = value.indexOf(';');
+            if (paramIndex >= 0) {
+                coding = value.substring(0, paramIndex).trim();
+                if (isZeroQuality(value.substring(paramIndex + 1))) {
+                    continue;
+                }
+            }
+            if (GZIP.equalsIgnoreCase(coding) || "*".equals(coding)) {
+                return GZIP;
+            }
+            if (DEFLATE.equalsIgnoreCase(coding)) {
+                deflate = true;
+            }
+        }
+        return deflate ? DEFLATE : null;
+    }
+
+    private static boolean isZeroQuality(String params) {
+        int qIndex = params.indexOf("q=");
+        if (qIndex < 0) {
+            return false;
+        }
+        try {
+            return Float.parseFloat(params.substring(qIndex + 2).trim()) <= 0f;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 图片、音视频以及压缩包本身已经压缩过，再压缩只会浪费 CPU
+     */
+    private static boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return true;
+        }
+        return !(contentType.startsWith("image/")
+                || contentType.startsWith("video/")
+                || contentType.startsWith("audio/")
+                || contentType.contains("zip")
+                || contentType.contains("octet-stream"));
+    }
+}
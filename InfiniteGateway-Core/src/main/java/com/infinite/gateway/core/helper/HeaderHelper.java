@@ -0,0 +1,97 @@
+package com.infinite.gateway.core.helper;
+
+import com.infinite.gateway.core.request.GatewayRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.AsciiString;
+
+import java.util.List;
+
+import static com.infinite.gateway.common.constant.HttpConstant.*;
+
+/**
+ * 网关转发时的请求头/响应头处理
+ *
+ * 请求头和响应头都在原有的 HttpHeaders 上原地修改：AHC 的 RequestBuilder.setHeaders(HttpHeaders) 直接持有传入的对象，
+ * 下游响应头也直接作为写回客户端的响应头，两个方向都不需要逐个拷贝
+ */
+public class HeaderHelper {
+
+    /**
+     * 逐跳首部（RFC 7230 6.1），只对当前这一跳连接有意义，不能转发
+     */
+    private static final AsciiString[] HOP_BY_HOP_HEADERS = {
+            HttpHeaderNames.CONNECTION,
+            HTTP_KEEP_ALIVE,
+            HTTP_PROXY_CONNECTION,
+            HttpHeaderNames.PROXY_AUTHENTICATE,
+            HttpHeaderNames.PROXY_AUTHORIZATION,
+            HttpHeaderNames.TE,
+            HttpHeaderNames.TRAILER,
+            HttpHeaderNames.TRANSFER_ENCODING,
+            HttpHeaderNames.UPGRADE
+    };
+
+    private static final AsciiString HTTP = AsciiString.cached("http");
+
+    private static final AsciiString HTTPS = AsciiString.cached("https");
+
+    /**
+     * 转发给下游前处理请求头：去掉逐跳首部，追加 X-Forwarded-For / X-Forwarded-Proto / X-Forwarded-Host
+     */
+    public static void prepareUpstreamHeaders(GatewayRequest request) {
+        HttpHeaders headers = request.getHeaders();
+        removeHopByHopHeaders(headers);
+
+        String forwardedFor = headers.get(HTTP_FORWARD_SEPARATOR);
+        String remoteIp = request.getRemoteAddress().getAddress().getHostAddress();
+        headers.set(HTTP_FORWARD_SEPARATOR, forwardedFor == null ? remoteIp : forwardedFor + ", " + remoteIp);
+        if (!headers.contains(HTTP_FORWARDED_PROTO)) {
+            headers.set(HTTP_FORWARDED_PROTO, request.isSecure() ? HTTPS : HTTP);
+        }
+        if (request.getHost() != null && !headers.contains(HTTP_FORWARDED_HOST)) {
+            headers.set(HTTP_FORWARDED_HOST, request.getHost());
+        }
+    }
+
+    /**
+     * 写回客户端前处理下游响应头：去掉逐跳首部，连接相关的首部由网关按客户端连接重新设置
+     * 下游的响应体已经聚合完整，Transfer-Encoding 去掉后（或下游没有给出长度时）按实际长度设置 Content-Length；
+     * HEAD 请求和 1xx / 204 / 304 响应没有响应体，保留下游的 Content-Length
+     */
+    public static void prepareDownstreamHeaders(HttpHeaders headers, int contentLength, HttpMethod requestMethod, int statusCode) {
+        boolean chunked = headers.contains(HttpHeaderNames.TRANSFER_ENCODING);
+        removeHopByHopHeaders(headers);
+        if (HttpMethod.HEAD.equals(requestMethod) || isBodilessStatus(statusCode)) {
+            return;
+        }
+        if (chunked || !headers.contains(HttpHeaderNames.CONTENT_LENGTH)) {
+            headers.set(HttpHeaderNames.CONTENT_LENGTH, contentLength);
+        }
+    }
+
+    private static boolean isBodilessStatus(int statusCode) {
+        return statusCode < HttpResponseStatus.OK.code()
+                || statusCode == HttpResponseStatus.NO_CONTENT.code()
+                || statusCode == HttpResponseStatus.NOT_MODIFIED.code();
+    }
+
+    private static void removeHopByHopHeaders(HttpHeaders headers) {
+        // Connection 中列出的首部同样是逐跳的
+        List<String> connectionOptions = headers.getAll(HttpHeaderNames.CONNECTION);
+        for (String connectionOption : connectionOptions) {
+            for (String option : connectionOption.split(",")) {
+                String name = option.trim();
+                if (!name.isEmpty()) {
+                    headers.remove(name);
+                }
+            }
+        }
+        for (AsciiString name : HOP_BY_HOP_HEADERS) {
+            headers.remove(name);
+        }
+    }
+
+}
@@ -1,66 +1,79 @@
 package com.infinite.gateway.core.helper;
 
-import com.alibaba.nacos.common.utils.StringUtils;
 import com.infinite.gateway.common.pojo.ServiceDefinition;
 import com.infinite.gateway.core.request.GatewayRequest;
+import com.infinite.gateway.core.request.id.RequestIdGeneratorManager;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.*;
+import io.netty.handler.ssl.SslHandler;
 import org.asynchttpclient.Request;
+import org.asynchttpclient.RequestBuilder;
 
 import java.net.InetSocketAddress;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
-import java.util.List;
 
-import static com.infinite.gateway.common.constant.HttpConstant.HTTP_FORWARD_SEPARATOR;
+import static com.infinite.gateway.common.constant.HttpConstant.HTTP_REQUEST_ID;
 
 /**
  * Netty服务端、网关、Http客户端之间的请求转换
  */
 public class RequestHelper {
 
+    /**
+     * 构建网关请求，只保留原始请求的引用，字符集、客户端IP、查询参数等在过滤器用到时才解析
+     * 请求ID写回请求头，随请求头一起转发给下游
+     */
     public static GatewayRequest buildGatewayRequest(ServiceDefinition serviceDefinition, FullHttpRequest fullHttpRequest, ChannelHandlerContext ctx) {
         HttpHeaders headers = fullHttpRequest.headers();
-        String host = headers.get(HttpHeaderNames.HOST);
-        HttpMethod method = fullHttpRequest.getMethod();
-        String uri = fullHttpRequest.getUri();
-        String contentType = HttpUtil.getMimeType(fullHttpRequest) == null ? null :
-                HttpUtil.getMimeType(fullHttpRequest).toString();
-        Charset charset = HttpUtil.getCharset(fullHttpRequest, StandardCharsets.UTF_8);
-        String clientIp = getClientIp(ctx, fullHttpRequest);
+        CharSequence requestId = RequestIdGeneratorManager.getInstance().resolve(headers.get(HTTP_REQUEST_ID));
+        headers.set(HTTP_REQUEST_ID, requestId);
 
-        return new GatewayRequest(
+        return GatewayRequest.newInstance(
+                requestId,
                 serviceDefinition,
-                charset,
-                clientIp,
-                host,
-                uri,
-                method,
-                contentType,
+                (InetSocketAddress) ctx.channel().remoteAddress(),
+                isSecure(ctx.channel()),
+                headers.get(HttpHeaderNames.HOST),
+                fullHttpRequest.uri(),
+                fullHttpRequest.method(),
                 headers,
                 fullHttpRequest);
     }
 
-    public static Request buildHttpClientRequest(GatewayRequest gatewayRequest) {
-        return gatewayRequest.buildUrl();
+    /**
+     * h2 的 stream 子 channel 上没有 SslHandler，需要看父连接
+     */
+    private static boolean isSecure(Channel channel) {
+        if (channel.pipeline().get(SslHandler.class) != null) {
+            return true;
+        }
+        return channel.parent() != null && channel.parent().pipeline().get(SslHandler.class) != null;
     }
 
-    // TODO
-    private static String getClientIp(ChannelHandlerContext ctx, FullHttpRequest request) {
-        String xForwardedValue = request.headers().get(HTTP_FORWARD_SEPARATOR);
-        String clientIp = null;
-        if (StringUtils.isNotEmpty(xForwardedValue)) {
-            List<String> values = Arrays.asList(xForwardedValue.split(", "));
-            if (values.size() >= 1 && StringUtils.isNotBlank(values.get(0))) {
-                clientIp = values.get(0);
-            }
+    /**
+     * 构建发给下游的请求，查询串原样透传
+     *
+     * 请求头原地处理后直接交给 AHC，不做拷贝
+     * 请求体直接引用 FullHttpRequest 的缓冲区，调用方需要保证请求发送完成前缓冲区不被释放
+     */
+    public static Request buildHttpClientRequest(GatewayRequest gatewayRequest) {
+        HeaderHelper.prepareUpstreamHeaders(gatewayRequest);
+        StringBuilder url = new StringBuilder(gatewayRequest.getModifyScheme())
+                .append(gatewayRequest.getModifyHost())
+                .append(gatewayRequest.getModifyPath());
+        if (gatewayRequest.getRawQuery() != null) {
+            url.append('?').append(gatewayRequest.getRawQuery());
         }
-        if (clientIp == null) {
-            InetSocketAddress inetSocketAddress = (InetSocketAddress) ctx.channel().remoteAddress();
-            clientIp = inetSocketAddress.getAddress().getHostAddress();
+        RequestBuilder requestBuilder = new RequestBuilder()
+                .setMethod(gatewayRequest.getMethod().name())
+                .setUrl(url.toString())
+                .setHeaders(gatewayRequest.getHeaders());
+        ByteBuf content = gatewayRequest.getFullHttpRequest().content();
+        if (content.isReadable()) {
+            requestBuilder.setBody(content.nioBuffer());
         }
-        return clientIp;
+        return requestBuilder.build();
     }
 
 }
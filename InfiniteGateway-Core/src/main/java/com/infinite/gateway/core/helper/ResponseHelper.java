@@ -10,7 +10,11 @@ import io.netty.handler.codec.http.*;
 import lombok.extern.slf4j.Slf4j;
 import org.asynchttpclient.Response;
 
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -19,7 +23,53 @@ import java.util.Objects;
 @Slf4j
 public class ResponseHelper {
 
-    public static FullHttpResponse buildHttpResponse(GatewayResponse gatewayResponse) {
+    private static final String CONTENT_TYPE_JSON = HttpHeaderValues.APPLICATION_JSON + ";charset=utf-8";
+
+    /**
+     * 按响应码预编码的响应模板
+     */
+    private static final Map<ResponseCode, FullHttpResponse> PRE_ENCODED_RESPONSES = new EnumMap<>(ResponseCode.class);
+
+    /**
+     * 按服务预编码的熔断降级响应模板，数量受服务数量限制
+     */
+    private static final Map<String /* 服务名 */, FullHttpResponse> PRE_ENCODED_FALLBACK_RESPONSES = new ConcurrentHashMap<>();
+
+    static {
+        for (ResponseCode code : ResponseCode.values()) {
+            PRE_ENCODED_RESPONSES.put(code, preEncode(code.getStatus(), JSONUtil.toJsonStr(code.getMessage())));
+        }
+    }
+
+    /**
+     * 预编码响应：响应体只编码一次并放入只读、不可释放的直接内存，每次写回只复制响应头
+     */
+    private static FullHttpResponse preEncode(HttpResponseStatus status, String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        ByteBuf buffer = Unpooled.unreleasableBuffer(
+                Unpooled.directBuffer(bytes.length).writeBytes(bytes).asReadOnly());
+        DefaultFullHttpResponse httpResponse = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status, buffer);
+        httpResponse.headers().set(HttpHeaderNames.CONTENT_TYPE, CONTENT_TYPE_JSON);
+        httpResponse.headers().set(HttpHeaderNames.CONTENT_LENGTH, bytes.length);
+        return httpResponse;
+    }
+
+    /**
+     * @param gatewayResponse 网关响应
+     * @param requestMethod 客户端请求方法，HEAD 请求保留下游的 Content-Length
+     */
+    public static FullHttpResponse buildHttpResponse(GatewayResponse gatewayResponse, HttpMethod requestMethod) {
+        if (gatewayResponse.getPreEncodedResponse() != null) {
+            // 网关自己生成的固定响应，共享响应体，只复制响应头
+            FullHttpResponse httpResponse = gatewayResponse.getPreEncodedResponse().retainedDuplicate();
+            // set(HttpHeaders) 会先清空模板上的 Content-Type 等首部，这里只覆盖同名首部
+            HttpHeaders responseHeaders = gatewayResponse.getResponseHeaders();
+            if (!responseHeaders.isEmpty()) {
+                httpResponse.headers().setAll(responseHeaders);
+                httpResponse.headers().set(HttpHeaderNames.CONTENT_LENGTH, httpResponse.content().readableBytes());
+            }
+            return httpResponse;
+        }
         ByteBuf content;
         if (Objects.nonNull(gatewayResponse.getResponse())) {
             content = Unpooled.wrappedBuffer(gatewayResponse.getResponse().getResponseBodyAsByteBuffer()); // 下游服务的http响应结果
@@ -31,9 +81,13 @@ public class ResponseHelper {
 
         DefaultFullHttpResponse httpResponse;
         if (Objects.nonNull(gatewayResponse.getResponse())) { // 下游响应不为空，直接拿下游响应构造
+            // 下游响应头去掉逐跳首部后直接作为响应头，不逐个拷贝
+            HttpHeaders headers = gatewayResponse.getResponse().getHeaders();
+            HeaderHelper.prepareDownstreamHeaders(headers, content.readableBytes(), requestMethod,
+                    gatewayResponse.getResponse().getStatusCode());
             httpResponse = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
-                    HttpResponseStatus.valueOf(gatewayResponse.getResponse().getStatusCode()), content);
-            httpResponse.headers().add(gatewayResponse.getResponse().getHeaders()); //
+                    HttpResponseStatus.valueOf(gatewayResponse.getResponse().getStatusCode()), content,
+                    headers, EmptyHttpHeaders.INSTANCE);
         } else {
             httpResponse = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
                     gatewayResponse.getHttpResponseStatus(), content);
@@ -45,29 +99,37 @@ public class ResponseHelper {
     }
 
     public static FullHttpResponse buildHttpResponse(ResponseCode responseCode) {
-        DefaultFullHttpResponse httpResponse = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
-                responseCode.getStatus(),
-                Unpooled.wrappedBuffer(responseCode.getMessage().getBytes()));
-        httpResponse.headers().set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON + ";charset=utf-8");
-        httpResponse.headers().set(HttpHeaderNames.CONTENT_LENGTH, httpResponse.content().readableBytes());
-
-        return httpResponse;
+        return PRE_ENCODED_RESPONSES.get(responseCode).retainedDuplicate();
     }
 
     public static GatewayResponse buildGatewayResponse(Response response) {
         GatewayResponse gatewayResponse = new GatewayResponse();
         gatewayResponse.setResponseHeaders(response.getHeaders());
         gatewayResponse.setHttpResponseStatus(HttpResponseStatus.valueOf(response.getStatusCode()));
-        gatewayResponse.setContent(response.getResponseBody());
+        // 响应体直接复用下游的字节，不解码成字符串（透传压缩时响应体是压缩后的字节）
         gatewayResponse.setResponse(response);
         return gatewayResponse;
     }
 
     public static GatewayResponse buildGatewayResponse(ResponseCode code) {
         GatewayResponse gatewayResponse = new GatewayResponse();
-        gatewayResponse.addHeader(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON + ";charset=utf-8");
         gatewayResponse.setHttpResponseStatus(code.getStatus());
-        gatewayResponse.setContent(JSONUtil.toJsonStr(code.getMessage()));
+        gatewayResponse.setPreEncodedResponse(PRE_ENCODED_RESPONSES.get(code));
+
+        return gatewayResponse;
+    }
+
+    /**
+     * 构建熔断降级响应，同一个服务的降级响应只编码一次
+     *
+     * @param serviceName 服务名
+     * @return 网关响应对象
+     */
+    public static GatewayResponse buildFallbackGatewayResponse(String serviceName) {
+        GatewayResponse gatewayResponse = new GatewayResponse();
+        gatewayResponse.setHttpResponseStatus(ResponseCode.SUCCESS.getStatus());
+        gatewayResponse.setPreEncodedResponse(PRE_ENCODED_FALLBACK_RESPONSES.computeIfAbsent(serviceName,
+                name -> preEncode(ResponseCode.SUCCESS.getStatus(), JSONUtil.toJsonStr(String.format("服务 %s 触发熔断降级", name)))));
 
         return gatewayResponse;
     }
@@ -0,0 +1,236 @@
+package com.infinite.gateway.core.http;
+
+import com.infinite.gateway.common.enums.HealthCheckEnum;
+import com.infinite.gateway.common.pojo.ServiceInstance;
+import com.infinite.gateway.config.config.http.HttpClientConfig;
+import com.infinite.gateway.core.filter.loadbalance.outlier.OutlierDetector;
+import com.infinite.gateway.core.filter.loadbalance.stats.InstanceStats;
+import com.infinite.gateway.core.filter.loadbalance.stats.InstanceStatsRegistry;
+import com.infinite.gateway.core.manager.DynamicConfigManager;
+import com.infinite.gateway.core.manager.ServiceInstanceView;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.asynchttpclient.Request;
+import org.asynchttpclient.RequestBuilder;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.infinite.gateway.common.constant.HttpConstant.HTTP_PREFIX_SEPARATOR;
+
+/**
+ * 主动健康检查
+ *
+ * 对 DynamicConfigManager.serviceInstanceMap 中的每个实例定时发起 HTTP GET 或 TCP 建连探测，
+ * 连续失败达到阈值时标记为不健康，负载均衡不再选中；连续成功达到阈值后恢复。
+ *
+ * 所有实例共用一个 HashedWheelTimer 调度，时间轮线程只负责发起探测，探测本身是异步的，
+ * HTTP 探测走 AHC、TCP 探测直接在 http 客户端的事件循环组上建连，不会为每个实例创建线程。
+ * 同一个实例的下一次探测在上一次结束后才调度，并加上随机延迟，避免所有实例在同一时刻被探测
+ */
+@Slf4j
+public class ActiveHealthChecker {
+
+    private static final ActiveHealthChecker INSTANCE = new ActiveHealthChecker();
+
+    private final ConcurrentHashMap<String /* 实例id */, HealthCheckTarget> targetMap = new ConcurrentHashMap<>();
+
+    private HttpClientConfig httpClientConfig;
+
+    private HealthCheckEnum type;
+
+    private HashedWheelTimer timer;
+
+    /**
+     * TCP 探测使用的 Bootstrap，可以重复用于多次建连
+     */
+    private Bootstrap tcpBootstrap;
+
+    private ActiveHealthChecker() {
+    }
+
+    public static ActiveHealthChecker getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 初始化健康检查
+     *
+     * @param httpClientConfig http客户端配置
+     * @param eventLoopGroup http客户端的事件循环组
+     * @param socketChannelClass 与事件循环组对应的 SocketChannel 类型
+     */
+    public void init(HttpClientConfig httpClientConfig, EventLoopGroup eventLoopGroup,
+                     Class<? extends SocketChannel> socketChannelClass) {
+        if (!httpClientConfig.isHttpHealthCheckEnabled()) {
+            log.info("ActiveHealthChecker disabled");
+            return;
+        }
+        this.httpClientConfig = httpClientConfig;
+        this.type = resolveType(httpClientConfig.getHttpHealthCheckType());
+        this.tcpBootstrap = new Bootstrap()
+                .group(eventLoopGroup)
+                .channel(socketChannelClass)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, httpClientConfig.getHttpHealthCheckTimeout())
+                .handler(new ChannelInboundHandlerAdapter());
+        this.timer = new HashedWheelTimer(new DefaultThreadFactory("health-check-timer", true),
+                100, TimeUnit.MILLISECONDS, 512);
+        // 实例变化时增删探测目标
+        DynamicConfigManager dynamicConfigManager = DynamicConfigManager.getInstance();
+        dynamicConfigManager.addServiceInstanceListener(this::onServiceInstancesChanged);
+        dynamicConfigManager.getServiceInstanceViewMap().forEach(this::onServiceInstancesChanged);
+        log.info("ActiveHealthChecker initialized, type={}, path={}, interval={}ms",
+                type.getName(), httpClientConfig.getHttpHealthCheckPath(), httpClientConfig.getHttpHealthCheckInterval());
+    }
+
+    public void shutdown() {
+        if (timer != null) {
+            timer.stop();
+        }
+    }
+
+    private static HealthCheckEnum resolveType(String type) {
+        try {
+            return HealthCheckEnum.valueOf(type.trim().toUpperCase());
+        } catch (RuntimeException e) {
+            log.warn("unknown health check type {}, use {}", type, HealthCheckEnum.HTTP.getName());
+            return HealthCheckEnum.HTTP;
+        }
+    }
+
+    /**
+     * 只探测已启用的实例（包括灰度实例）
+     */
+    private void onServiceInstancesChanged(String serviceName, ServiceInstanceView view) {
+        Set<String> instanceIds = new HashSet<>();
+        for (ServiceInstance instance : view.getEnabled()) {
+            instanceIds.add(instance.getInstanceId());
+            targetMap.computeIfAbsent(instance.getInstanceId(), id -> {
+                HealthCheckTarget target = new HealthCheckTarget(serviceName, instance);
+                // 首次探测在一个检查间隔内随机分布
+                timer.newTimeout(target, ThreadLocalRandom.current().nextInt(Math.max(httpClientConfig.getHttpHealthCheckInterval(), 1)),
+                        TimeUnit.MILLISECONDS);
+                return target;
+            });
+        }
+        targetMap.values().removeIf(target -> {
+            boolean removed = target.serviceName.equals(serviceName) && !instanceIds.contains(target.instance.getInstanceId());
+            if (removed) {
+                target.cancelled = true;
+            }
+            return removed;
+        });
+    }
+
+    private CompletableFuture<Boolean> probe(ServiceInstance instance) {
+        if (type == HealthCheckEnum.TCP) {
+            CompletableFuture<Boolean> future = new CompletableFuture<>();
+            ChannelFuture connectFuture = tcpBootstrap.connect(instance.getIp(), instance.getPort());
+            connectFuture.addListener(f -> {
+                if (f.isSuccess()) {
+                    connectFuture.channel().close();
+                }
+                future.complete(f.isSuccess());
+            });
+            return future;
+        }
+        Request request = new RequestBuilder(HttpMethod.GET.name())
+                .setUrl(HTTP_PREFIX_SEPARATOR + instance.getInstanceId() + httpClientConfig.getHttpHealthCheckPath())
+                .setRequestTimeout(httpClientConfig.getHttpHealthCheckTimeout())
+                .build();
+        return HttpClient.getInstance().executeRequest(request)
+                .handle((response, throwable) -> throwable == null
+                        && response.getStatusCode() >= 200 && response.getStatusCode() < 400);
+    }
+
+    /**
+     * 单个实例的探测任务，连续成功、失败次数只在探测结束时由同一个任务串行更新
+     */
+    private class HealthCheckTarget implements TimerTask {
+
+        private final String serviceName;
+
+        private final ServiceInstance instance;
+
+        private int successes;
+
+        private int failures;
+
+        private volatile boolean cancelled;
+
+        HealthCheckTarget(String serviceName, ServiceInstance instance) {
+            this.serviceName = serviceName;
+            this.instance = instance;
+        }
+
+        @Override
+        public void run(Timeout timeout) {
+            if (cancelled) {
+                return;
+            }
+            try {
+                probe(instance).whenComplete((healthy, throwable) -> {
+                    onProbed(throwable == null && Boolean.TRUE.equals(healthy));
+                    scheduleNext();
+                });
+            } catch (Throwable t) {
+                log.error("health check {} error", instance.getInstanceId(), t);
+                scheduleNext();
+            }
+        }
+
+        private void onProbed(boolean success) {
+            if (cancelled) {
+                // 实例已经下线，不再为它创建统计
+                return;
+            }
+            // 实例下线后重新上线时统计对象会被替换，每次都重新获取
+            InstanceStats stats = InstanceStatsRegistry.getInstance().getStats(instance);
+            if (success) {
+                failures = 0;
+                successes++;
+                if (!stats.isHealthy() && successes >= httpClientConfig.getHttpHealthCheckHealthyThreshold()) {
+                    stats.setHealthy(true);
+                    log.info("service {} instance {} becomes healthy", serviceName, instance.getInstanceId());
+                    OutlierDetector.getInstance().refresh(serviceName);
+                }
+            } else {
+                successes = 0;
+                failures++;
+                if (stats.isHealthy() && failures >= httpClientConfig.getHttpHealthCheckUnhealthyThreshold()) {
+                    stats.setHealthy(false);
+                    log.warn("service {} instance {} becomes unhealthy", serviceName, instance.getInstanceId());
+                    OutlierDetector.getInstance().refresh(serviceName);
+                }
+            }
+        }
+
+        private void scheduleNext() {
+            if (cancelled || timer == null) {
+                return;
+            }
+            long delay = httpClientConfig.getHttpHealthCheckInterval()
+                    + ThreadLocalRandom.current().nextInt(Math.max(httpClientConfig.getHttpHealthCheckJitter(), 0) + 1);
+            try {
+                timer.newTimeout(this, delay, TimeUnit.MILLISECONDS);
+            } catch (IllegalStateException e) {
+                // 时间轮已经停止
+                cancelled = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.infinite.gateway.core.http;
+
+import com.infinite.gateway.common.pojo.ServiceInstance;
+import com.infinite.gateway.config.config.http.HttpClientConfig;
+import com.infinite.gateway.core.manager.DynamicConfigManager;
+import io.netty.channel.EventLoopGroup;
+import io.netty.handler.codec.http.HttpMethod;
+import lombok.extern.slf4j.Slf4j;
+import org.asynchttpclient.Request;
+import org.asynchttpclient.RequestBuilder;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.infinite.gateway.common.constant.HttpConstant.HTTP_PREFIX_SEPARATOR;
+
+/**
+ * 上游连接预热器
+ *
+ * 1. 新实例被发现时，并发发起若干个 HEAD 请求，让 AHC 连接池提前建立好空闲连接，
+ *    避免扩容后的首批请求承担 TCP 建连（以及 TLS 握手）的开销
+ * 2. 定时对所有实例重新发起预热请求，刷新空闲连接，避免连接池被 httpPooledConnectionIdleTimeout 清空
+ */
+@Slf4j
+public class UpstreamConnectionWarmer {
+
+    private static final UpstreamConnectionWarmer INSTANCE = new UpstreamConnectionWarmer();
+
+    private HttpClientConfig httpClientConfig;
+
+    /**
+     * 正在预热中的实例，避免同一个实例被重复预热
+     */
+    private final Map<String /* 实例id */, CompletableFuture<Void>> warmingFutureMap = new ConcurrentHashMap<>();
+
+    private UpstreamConnectionWarmer() {
+    }
+
+    public static UpstreamConnectionWarmer getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 初始化预热器，保活任务直接挂在 http 客户端的 EventLoop 上执行，不额外创建线程
+     *
+     * @param httpClientConfig http客户端配置
+     * @param eventLoopGroup http客户端的事件循环组
+     */
+    public void init(HttpClientConfig httpClientConfig, EventLoopGroup eventLoopGroup) {
+        this.httpClientConfig = httpClientConfig;
+        if (httpClientConfig.isHttpWarmUpEnabled() && httpClientConfig.isHttpKeepWarmEnabled()) {
+            // 刷新间隔取空闲超时的一半，保证空闲连接在被回收之前至少被使用一次
+            long interval = Math.max(httpClientConfig.getHttpPooledConnectionIdleTimeout() / 2, 1000);
+            eventLoopGroup.next().scheduleAtFixedRate(this::keepWarm, interval, interval, TimeUnit.MILLISECONDS);
+        }
+        log.info("UpstreamConnectionWarmer initialized, enabled={}, connections={}, keepWarm={}",
+                httpClientConfig.isHttpWarmUpEnabled(),
+                httpClientConfig.getHttpWarmUpConnections(),
+                httpClientConfig.isHttpKeepWarmEnabled());
+    }
+
+    public boolean isEnabled() {
+        return httpClientConfig != null && httpClientConfig.isHttpWarmUpEnabled();
+    }
+
+    /**
+     * 预热实例连接
+     *
+     * @param instance 新发现的服务实例
+     * @return 预热完成（或超时）时完成的 future，永远不会异常完成
+     */
+    public CompletableFuture<Void> warmUp(ServiceInstance instance) {
+        if (!isEnabled()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String instanceId = instance.getInstanceId();
+        CompletableFuture<Void> warmingFuture = warmingFutureMap.get(instanceId);
+        if (warmingFuture != null) {
+            return warmingFuture;
+        }
+        CompletableFuture<Void> future = doWarmUp(instance)
+                .completeOnTimeout(null, httpClientConfig.getHttpWarmUpTimeout(), TimeUnit.MILLISECONDS);
+        warmingFuture = warmingFutureMap.putIfAbsent(instanceId, future);
+        if (warmingFuture != null) {
+            return warmingFuture;
+        }
+        future.whenComplete((r, t) -> {
+            warmingFutureMap.remove(instanceId, future);
+            log.info("instance {} connection warm-up finished", instanceId);
+        });
+        return future;
+    }
+
+    /**
+     * 并发发起 httpWarmUpConnections 个请求，AHC 会为每个并发请求建立一条连接，请求结束后连接回到连接池
+     */
+    private CompletableFuture<Void> doWarmUp(ServiceInstance instance) {
+        Request request = new RequestBuilder(HttpMethod.HEAD.name())
+                .setUrl(HTTP_PREFIX_SEPARATOR + instance.getInstanceId() + httpClientConfig.getHttpWarmUpPath())
+                .setRequestTimeout(httpClientConfig.getHttpWarmUpTimeout())
+                .build();
+        int connections = Math.max(httpClientConfig.getHttpWarmUpConnections(), 1);
+        CompletableFuture<?>[] futures = new CompletableFuture[connections];
+        for (int i = 0; i < connections; i++) {
+            // 只关心连接是否建立，下游返回什么状态码都无所谓，失败也不阻塞放行
+            futures[i] = HttpClient.getInstance().executeRequest(request).handle((response, throwable) -> null);
+        }
+        return CompletableFuture.allOf(futures);
+    }
+
+    /**
+     * 定时刷新所有实例的空闲连接
+     */
+    private void keepWarm() {
+        try {
+            DynamicConfigManager.getInstance().getServiceInstanceMap().values().forEach(instanceMap ->
+                    instanceMap.values().forEach(instance -> {
+                        if (!warmingFutureMap.containsKey(instance.getInstanceId())) {
+                            doWarmUp(instance);
+                        }
+                    }));
+        } catch (Throwable t) {
+            // 定时任务抛出异常会导致后续调度被取消，这里只记录日志
+            log.error("keep upstream connections warm error", t);
+        }
+    }
+}
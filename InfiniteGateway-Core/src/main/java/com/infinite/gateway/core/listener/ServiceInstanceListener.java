@@ -0,0 +1,15 @@
+package com.infinite.gateway.core.listener;
+
+import com.infinite.gateway.core.manager.ServiceInstanceView;
+
+public interface ServiceInstanceListener {
+
+    /**
+     * 服务实例视图变化
+     *
+     * @param serviceName 服务名
+     * @param view 新的实例视图，服务没有实例时其中的列表都为空
+     */
+    void changeOnServiceInstances(String serviceName, ServiceInstanceView view);
+
+}
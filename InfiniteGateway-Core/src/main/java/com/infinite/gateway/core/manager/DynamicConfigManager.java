@@ -5,7 +5,10 @@ import com.infinite.gateway.common.exception.NotFoundException;
 import com.infinite.gateway.common.pojo.RouteDefinition;
 import com.infinite.gateway.common.pojo.ServiceDefinition;
 import com.infinite.gateway.common.pojo.ServiceInstance;
+import com.infinite.gateway.core.filter.loadbalance.stats.InstanceStatsRegistry;
+import com.infinite.gateway.core.http.UpstreamConnectionWarmer;
 import com.infinite.gateway.core.listener.RouteListener;
+import com.infinite.gateway.core.listener.ServiceInstanceListener;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 
@@ -38,6 +41,19 @@ public class DynamicConfigManager {
 
     private final ConcurrentHashMap<String /* 服务名 */, ConcurrentHashMap<String /* 实例id */, ServiceInstance>> serviceInstanceMap = new ConcurrentHashMap<>();
 
+    /**
+     * 正在进行连接预热的实例，预热完成前不会出现在 serviceInstanceMap 中，也就不会被负载均衡选中
+     */
+    private final ConcurrentHashMap<String /* 服务名 */, ConcurrentHashMap<String /* 实例id */, ServiceInstance>> warmingInstanceMap = new ConcurrentHashMap<>();
+
+    /**
+     * serviceInstanceMap 的只读视图，预先划分好启用、灰度、非灰度实例，实例变化时整体替换
+     * 负载均衡策略可以按列表的引用判断实例集合是否变化，不需要每次比较内容
+     */
+    private final ConcurrentHashMap<String /* 服务名 */, ServiceInstanceView> serviceInstanceViewMap = new ConcurrentHashMap<>();
+
+    private final List<ServiceInstanceListener> serviceInstanceListeners = new CopyOnWriteArrayList<>();
+
     private ConcurrentHashMap<String /* 服务名 */, List<RouteListener>> routeListeners = new ConcurrentHashMap<>();
 
     static {
@@ -48,12 +64,45 @@ public class DynamicConfigManager {
         return INSTANCE;
     }
 
+    /**
+     * 获取服务实例的只读视图，实例集合不变时多次调用返回同一个对象，服务没有实例时为 null
+     */
+    public ServiceInstanceView getServiceInstanceView(String serviceName) {
+        ServiceInstanceView view = serviceInstanceViewMap.get(serviceName);
+        return view == null || view.getAll().isEmpty() ? null : view;
+    }
+
+    /**
+     * 获取服务已启用实例的只读列表，实例集合不变时多次调用返回同一个对象，没有已启用实例时为 null
+     */
     public List<ServiceInstance> getServiceInstances(String serviceName) {
+        ServiceInstanceView view = serviceInstanceViewMap.get(serviceName);
+        return view == null || view.getEnabled().isEmpty() ? null : view.getEnabled();
+    }
+
+    /**
+     * 实例是否在服务当前的实例集合中，预热中的实例不算
+     */
+    public boolean containsServiceInstance(String serviceName, String instanceId) {
+        Map<String, ServiceInstance> instanceMap = serviceInstanceMap.get(serviceName);
+        return instanceMap != null && instanceMap.containsKey(instanceId);
+    }
+
+    public void addServiceInstanceListener(ServiceInstanceListener listener) {
+        serviceInstanceListeners.add(listener);
+    }
+
+    private void refreshServiceInstanceView(String serviceName) {
         ConcurrentHashMap<String, ServiceInstance> map = serviceInstanceMap.get(serviceName);
-        if (map == null || map.isEmpty()) {
-            return null;
+        ServiceInstanceView view = ServiceInstanceView.of(serviceName, map == null ? List.of() : map.values());
+        serviceInstanceViewMap.put(serviceName, view);
+        for (ServiceInstanceListener listener : serviceInstanceListeners) {
+            try {
+                listener.changeOnServiceInstances(serviceName, view);
+            } catch (Exception e) {
+                log.error("service instance listener error, service: {}", serviceName, e);
+            }
         }
-        return new ArrayList<>(map.values());
     }
 
     public void onRouteListeners(List<RouteDefinition> newRoutes) {
@@ -124,11 +173,95 @@ public class DynamicConfigManager {
         serviceDefinitionMap.put(serviceDefinition.getServiceName(), serviceDefinition);
     }
 
-    public void updateServiceInstance(ServiceDefinition serviceDefinition, Set<ServiceInstance> set) {
-        serviceInstanceMap.put(
-                serviceDefinition.getServiceName(),
-                new ConcurrentHashMap<>(set.stream()
-                        .collect(Collectors.toMap(ServiceInstance::getInstanceId, instance -> instance))));
+    /**
+     * 更新服务实例
+     * 新上线的实例会先进行连接预热，若服务已有其他可用实例，则预热完成后才放入实例集合接收流量
+     * @param serviceDefinition 服务定义
+     * @param set 注册中心中该服务的全量实例
+     */
+    public synchronized void updateServiceInstance(ServiceDefinition serviceDefinition, Set<ServiceInstance> set) {
+        String serviceName = serviceDefinition.getServiceName();
+        ConcurrentHashMap<String, ServiceInstance> oldInstanceMap = serviceInstanceMap.get(serviceName);
+        ConcurrentHashMap<String, ServiceInstance> newInstanceMap = new ConcurrentHashMap<>(set.stream()
+                .collect(Collectors.toMap(ServiceInstance::getInstanceId, instance -> instance)));
+
+        // 1.找出新上线的实例（包括上次更新时仍在预热中的实例）
+        List<ServiceInstance> newInstances = newInstanceMap.values().stream()
+                .filter(instance -> oldInstanceMap == null || !oldInstanceMap.containsKey(instance.getInstanceId()))
+                .toList();
+        ConcurrentHashMap<String, ServiceInstance> warmingMap = warmingInstanceMap.computeIfAbsent(serviceName, k -> new ConcurrentHashMap<>());
+        // 已经下线的实例不再等待预热
+        warmingMap.keySet().retainAll(newInstanceMap.keySet());
+        stampRegisterTime(oldInstanceMap, warmingMap, newInstanceMap.values());
+
+        // 2.只有存在其他可用实例时才让新实例等待预热，否则（如首次发现服务、全量替换发布）直接放行，避免服务不可用
+        UpstreamConnectionWarmer warmer = UpstreamConnectionWarmer.getInstance();
+        boolean holdBack = warmer.isEnabled() && newInstanceMap.size() > newInstances.size();
+        for (ServiceInstance instance : newInstances) {
+            String instanceId = instance.getInstanceId();
+            if (holdBack) {
+                newInstanceMap.remove(instanceId);
+                warmingMap.put(instanceId, instance);
+            } else {
+                warmingMap.remove(instanceId);
+            }
+        }
+        serviceInstanceMap.put(serviceName, newInstanceMap);
+        refreshServiceInstanceView(serviceName);
+        // 先发布新的实例集合再注册预热回调：预热可能已经完成（如快速失败），回调会在当前线程重入执行，
+        // 放入的必须是刚发布的实例集合，否则会被上面的发布覆盖
+        for (ServiceInstance instance : newInstances) {
+            String instanceId = instance.getInstanceId();
+            warmer.warmUp(instance).whenComplete((r, t) -> onInstanceWarmedUp(serviceName, instanceId));
+        }
+
+        // 3.移除已下线实例的运行时统计
+        if (oldInstanceMap != null) {
+            Set<String> removedInstanceIds = new HashSet<>(oldInstanceMap.keySet());
+            set.forEach(instance -> removedInstanceIds.remove(instance.getInstanceId()));
+            InstanceStatsRegistry.getInstance().remove(removedInstanceIds);
+        }
+    }
+
+    /**
+     * 记录实例的上线时间，作为负载均衡慢启动的起点
+     * 注册中心每次推送的都是新对象，已知实例沿用之前的时间；首次发现服务时已有的实例视为已经热身，不做慢启动
+     */
+    private void stampRegisterTime(Map<String, ServiceInstance> oldInstanceMap,
+                                   Map<String, ServiceInstance> warmingMap,
+                                   Collection<ServiceInstance> instances) {
+        long now = System.currentTimeMillis();
+        for (ServiceInstance instance : instances) {
+            if (instance.getRegisterTime() > 0) {
+                continue;
+            }
+            ServiceInstance known = oldInstanceMap == null ? null : oldInstanceMap.get(instance.getInstanceId());
+            if (known == null) {
+                known = warmingMap.get(instance.getInstanceId());
+            }
+            if (known != null) {
+                instance.setRegisterTime(known.getRegisterTime());
+            } else if (oldInstanceMap != null) {
+                instance.setRegisterTime(now);
+            }
+        }
+    }
+
+    /**
+     * 实例预热完成，放入实例集合开始接收流量
+     */
+    private synchronized void onInstanceWarmedUp(String serviceName, String instanceId) {
+        ConcurrentHashMap<String, ServiceInstance> warmingMap = warmingInstanceMap.get(serviceName);
+        ServiceInstance instance = warmingMap == null ? null : warmingMap.remove(instanceId);
+        if (instance == null) {
+            // 实例已下线或者未被拦截（直接放行）
+            return;
+        }
+        // 从开始接收流量时计算慢启动
+        instance.setRegisterTime(System.currentTimeMillis());
+        serviceInstanceMap.computeIfAbsent(serviceName, k -> new ConcurrentHashMap<>()).put(instanceId, instance);
+        refreshServiceInstanceView(serviceName);
+        log.info("service {} instance {} warmed up, start receiving traffic", serviceName, instanceId);
     }
 
     /**
@@ -0,0 +1,205 @@
+package com.infinite.gateway.core.manager;
+
+import com.infinite.gateway.common.pojo.ServiceInstance;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.infinite.gateway.common.constant.GrayConstant.GRAY_BUCKET_COUNT;
+
+/**
+ * 服务实例的只读视图，实例变化时由 DynamicConfigManager 整体替换
+ *
+ * 创建时按实例id排序，并预先划分出启用、灰度、非灰度三个不可变列表，请求路径上只读列表不分配对象；
+ * 负载均衡策略可以按列表的引用判断实例集合是否变化。
+ * 按元数据（如 version=v2）划分的子集在第一次按某个元数据键选择时构建，之后同一个视图内按键值两次哈希查找。
+ * 每个视图创建时分配递增的版本号，请求可能还持有旧视图，负载均衡策略按版本号判断两个实例列表哪个更新
+ */
+@Getter
+public class ServiceInstanceView {
+
+    private static final AtomicLong VERSION_SEQUENCE = new AtomicLong();
+
+    private final String serviceName;
+
+    /**
+     * 视图的版本号，后创建的视图版本号更大
+     */
+    private final long version;
+
+    /**
+     * 全部实例，包括未启用的
+     */
+    private final List<ServiceInstance> all;
+
+    /**
+     * 已启用的实例
+     */
+    private final List<ServiceInstance> enabled;
+
+    /**
+     * 已启用的灰度实例
+     */
+    private final List<ServiceInstance> gray;
+
+    /**
+     * 已启用的非灰度实例
+     */
+    private final List<ServiceInstance> nonGray;
+
+    /**
+     * 灰度实例的灰度比例之和
+     */
+    private final double grayThreshold;
+
+    /**
+     * 灰度流量占用的桶数，桶号 [0, grayBuckets) 的请求走灰度实例
+     */
+    private final int grayBuckets;
+
+    /**
+     * 灰度流量使用的负载均衡键，避免与非灰度流量共用策略的缓存状态
+     */
+    private final String grayLoadBalanceKey;
+
+    /**
+     * 按元数据划分的已启用实例子集
+     */
+    @Getter(lombok.AccessLevel.NONE)
+    private final ConcurrentHashMap<String /* 元数据键 */, Map<String /* 元数据值 */, InstanceSubset>> metadataSubsets = new ConcurrentHashMap<>();
+
+    private ServiceInstanceView(String serviceName, List<ServiceInstance> all) {
+        this.serviceName = serviceName;
+        this.version = VERSION_SEQUENCE.incrementAndGet();
+        this.all = all;
+        List<ServiceInstance> enabled = new ArrayList<>(all.size());
+        List<ServiceInstance> gray = new ArrayList<>();
+        List<ServiceInstance> nonGray = new ArrayList<>(all.size());
+        double grayThreshold = 0;
+        for (ServiceInstance instance : all) {
+            if (!instance.isEnabled()) {
+                continue;
+            }
+            enabled.add(instance);
+            if (instance.isGray()) {
+                gray.add(instance);
+                grayThreshold += instance.getThreshold();
+            } else {
+                nonGray.add(instance);
+            }
+        }
+        // 全部启用时直接复用，保持引用不变
+        this.enabled = enabled.size() == all.size() ? all : List.copyOf(enabled);
+        this.gray = gray.size() == this.enabled.size() ? this.enabled : List.copyOf(gray);
+        this.nonGray = nonGray.size() == this.enabled.size() ? this.enabled : List.copyOf(nonGray);
+        this.grayThreshold = grayThreshold;
+        this.grayBuckets = (int) Math.round(Math.min(grayThreshold, 1D) * GRAY_BUCKET_COUNT);
+        this.grayLoadBalanceKey = serviceName + "#gray";
+    }
+
+    /**
+     * 按实例id排序后创建视图
+     */
+    public static ServiceInstanceView of(String serviceName, Iterable<ServiceInstance> instances) {
+        List<ServiceInstance> sorted = new ArrayList<>();
+        instances.forEach(sorted::add);
+        sorted.sort(Comparator.comparing(ServiceInstance::getInstanceId));
+        return new ServiceInstanceView(serviceName, List.copyOf(sorted));
+    }
+
+    /**
+     * 用当前视图中的部分实例（如去掉被驱逐的实例后）创建新视图，保持原有顺序
+     */
+    public ServiceInstanceView subset(List<ServiceInstance> instances) {
+        return new ServiceInstanceView(serviceName, List.copyOf(instances));
+    }
+
+    /**
+     * 负载均衡的候选实例：灰度请求优先选灰度实例，非灰度请求优先选非灰度实例，对应的实例为空时退回全部已启用实例
+     */
+    public List<ServiceInstance> select(boolean grayRequest) {
+        if (grayRequest && !gray.isEmpty()) {
+            return gray;
+        }
+        return nonGray.isEmpty() ? enabled : nonGray;
+    }
+
+    /**
+     * 与 {@link #select(boolean)} 对应的负载均衡键
+     */
+    public String loadBalanceKey(boolean grayRequest) {
+        return grayRequest && !gray.isEmpty() ? grayLoadBalanceKey : serviceName;
+    }
+
+    /**
+     * 负载均衡键在当前视图中对应的候选实例，与 {@link #loadBalanceKey(boolean)}、{@link InstanceSubset#getLoadBalanceKey()} 一一对应；
+     * 当前视图中不会再使用该键（如灰度实例已全部下线）时返回 null
+     */
+    public List<ServiceInstance> candidatesOf(String loadBalanceKey) {
+        if (serviceName.equals(loadBalanceKey)) {
+            return select(false);
+        }
+        if (grayLoadBalanceKey.equals(loadBalanceKey)) {
+            return gray.isEmpty() ? null : gray;
+        }
+        int start = serviceName.length() + 1;
+        if (loadBalanceKey.length() > start && loadBalanceKey.startsWith(serviceName)
+                && loadBalanceKey.charAt(start - 1) == '#') {
+            int separator = loadBalanceKey.indexOf('=', start);
+            if (separator > start) {
+                InstanceSubset subset = getMetadataSubset(loadBalanceKey.substring(start, separator),
+                        loadBalanceKey.substring(separator + 1));
+                return subset == null ? null : subset.getInstances();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取元数据 key=value 的已启用实例子集，没有匹配的实例时返回 null
+     */
+    public InstanceSubset getMetadataSubset(String key, String value) {
+        Map<String, InstanceSubset> index = metadataSubsets.get(key);
+        if (index == null) {
+            index = metadataSubsets.computeIfAbsent(key, this::buildMetadataIndex);
+        }
+        return index.get(value);
+    }
+
+    private Map<String, InstanceSubset> buildMetadataIndex(String key) {
+        Map<String, List<ServiceInstance>> grouped = new HashMap<>();
+        for (ServiceInstance instance : enabled) {
+            String value = instance.getMetadata() == null ? null : instance.getMetadata().get(key);
+            if (value != null) {
+                grouped.computeIfAbsent(value, v -> new ArrayList<>()).add(instance);
+            }
+        }
+        Map<String, InstanceSubset> index = new HashMap<>(grouped.size() * 2);
+        grouped.forEach((value, instances) -> index.put(value,
+                new InstanceSubset(List.copyOf(instances), serviceName + "#" + key + "=" + value)));
+        return Map.copyOf(index);
+    }
+
+    /**
+     * 按元数据划分的实例子集以及对应的负载均衡键
+     */
+    @Getter
+    public static class InstanceSubset {
+
+        private final List<ServiceInstance> instances;
+
+        private final String loadBalanceKey;
+
+        InstanceSubset(List<ServiceInstance> instances, String loadBalanceKey) {
+            this.instances = instances;
+            this.loadBalanceKey = loadBalanceKey;
+        }
+    }
+
+}
@@ -2,7 +2,9 @@ package com.infinite.gateway.core.netty;
 
 import com.infinite.gateway.config.config.Config;
 import com.infinite.gateway.core.LifeCycle;
+import com.infinite.gateway.core.filter.loadbalance.locality.ZoneAwareSelector;
 import com.infinite.gateway.core.netty.processor.NettyCoreProcessor;
+import com.infinite.gateway.core.request.id.RequestIdGeneratorManager;
 
 public class Container implements LifeCycle {
 
@@ -10,6 +12,8 @@ public class Container implements LifeCycle {
     private final NettyHttpServer nettyHttpServer;
 
     public Container(Config config) {
+        RequestIdGeneratorManager.getInstance().init(config);
+        ZoneAwareSelector.getInstance().init(config);
         this.nettyHttpClient = new NettyHttpClient(config);
         this.nettyHttpServer = new NettyHttpServer(config.getNetty(), new NettyCoreProcessor(), config);
     }
@@ -1,20 +1,22 @@
 package com.infinite.gateway.core.netty;
 
-import com.infinite.gateway.common.util.SystemUtil;
+import com.infinite.gateway.common.enums.TransportEnum;
 import com.infinite.gateway.config.config.Config;
 import com.infinite.gateway.config.config.http.HttpClientConfig;
 import com.infinite.gateway.core.LifeCycle;
+import com.infinite.gateway.core.http.ActiveHealthChecker;
 import com.infinite.gateway.core.http.HttpClient;
+import com.infinite.gateway.core.http.UpstreamConnectionWarmer;
+import com.infinite.gateway.core.netty.transport.NettyTransport;
 import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.epoll.EpollEventLoopGroup;
-import io.netty.channel.kqueue.KQueueEventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.util.concurrent.DefaultThreadFactory;
 import lombok.extern.slf4j.Slf4j;
 import org.asynchttpclient.AsyncHttpClient;
 import org.asynchttpclient.DefaultAsyncHttpClient;
 import org.asynchttpclient.DefaultAsyncHttpClientConfig;
+import org.asynchttpclient.netty.channel.ChannelManager;
 
 import java.io.IOException;
 
@@ -23,21 +25,23 @@ public class NettyHttpClient implements LifeCycle {
 
     private final Config config;
 
+    private final TransportEnum transport;
+
     private final EventLoopGroup eventLoopGroupWorker;
 
     private AsyncHttpClient asyncHttpClient;
 
     public NettyHttpClient(Config config) {
         this.config = config;
-        if (SystemUtil.isLinuxPlatform()) {
-            eventLoopGroupWorker = new EpollEventLoopGroup(
-                    config.getHttpClient().getEventLoopGroupWorkerNum(),
-                    new DefaultThreadFactory("epoll-netty-client-worker-nio"));
-        }else {
-            eventLoopGroupWorker = new NioEventLoopGroup(
-                    config.getHttpClient().getEventLoopGroupWorkerNum(),
-                    new DefaultThreadFactory("default-netty-client-worker-nio"));
+        // AsyncHttpClient 只支持 NIO / Epoll / KQueue 的事件循环组，io_uring 无法用于上游客户端，回退到 epoll
+        TransportEnum transport = NettyTransport.resolve(config.getHttpClient().getTransport());
+        if (transport == TransportEnum.IO_URING) {
+            log.warn("AsyncHttpClient does not support io_uring, upstream client falls back to epoll");
+            transport = NettyTransport.resolve(TransportEnum.EPOLL.getName());
         }
+        this.transport = transport;
+        eventLoopGroupWorker = NettyTransport.newEventLoopGroup(
+                transport, config.getHttpClient().getEventLoopGroupWorkerNum(), "netty-client-worker-nio");
     }
 
     @Override
@@ -49,17 +53,35 @@ public class NettyHttpClient implements LifeCycle {
                 .setRequestTimeout(httpClientConfig.getHttpRequestTimeout()) // 请求超时设置
                 .setMaxRedirects(httpClientConfig.getHttpMaxRedirects()) // 最大重定向次数
                 .setAllocator(PooledByteBufAllocator.DEFAULT) // 使用池化的ByteBuf分配器以提升性能
-                .setCompressionEnforced(true) // 强制压缩
+                .setCompressionEnforced(false) // 不强制压缩，Accept-Encoding 由客户端请求头决定并透传给下游
                 .setMaxConnections(httpClientConfig.getHttpMaxConnections()) // 最大连接数
                 .setMaxConnectionsPerHost(httpClientConfig.getHttpConnectionsPerHost()) // 每个主机的最大连接数
-                .setPooledConnectionIdleTimeout(httpClientConfig.getHttpPooledConnectionIdleTimeout()); // 连接池中空闲连接的超时时间
+                .setPooledConnectionIdleTimeout(httpClientConfig.getHttpPooledConnectionIdleTimeout()) // 连接池中空闲连接的超时时间
+                // AHC 默认会在 pipeline 中加入解压处理器，这里替换成空处理器，下游压缩后的响应体原样返回给客户端
+                // 注意不能直接移除，https 连接会以该处理器为锚点插入 SslHandler
+                .setHttpAdditionalChannelInitializer(channel -> channel.pipeline().replace(
+                        ChannelManager.INFLATER_HANDLER, ChannelManager.INFLATER_HANDLER, PassthroughInflaterHandler.INSTANCE));
         // 根据配置创建异步HTTP客户端
         this.asyncHttpClient = new DefaultAsyncHttpClient(builder.build());
         HttpClient.getInstance().initialized(asyncHttpClient);
+        // 初始化上游连接预热器，新实例上线时提前建立连接，并定时保活空闲连接
+        UpstreamConnectionWarmer.getInstance().init(httpClientConfig, eventLoopGroupWorker);
+        // 初始化主动健康检查，探测复用 http 客户端的事件循环组
+        ActiveHealthChecker.getInstance().init(httpClientConfig, eventLoopGroupWorker, NettyTransport.socketChannelClass(transport));
+    }
+
+    /**
+     * 占位用的解压处理器，不做任何处理
+     */
+    @ChannelHandler.Sharable
+    private static class PassthroughInflaterHandler extends ChannelInboundHandlerAdapter {
+
+        private static final PassthroughInflaterHandler INSTANCE = new PassthroughInflaterHandler();
     }
 
     @Override
     public void shutdown() {
+        ActiveHealthChecker.getInstance().shutdown();
         if (this.asyncHttpClient != null) {
             try {
                 this.asyncHttpClient.close();
@@ -1,28 +1,35 @@
 package com.infinite.gateway.core.netty;
 
-import com.infinite.gateway.common.util.SystemUtil;
+import com.infinite.gateway.common.enums.TransportEnum;
 import com.infinite.gateway.config.config.Config;
 import com.infinite.gateway.config.config.netty.NettyConfig;
+import com.infinite.gateway.config.config.netty.SslConfig;
 import com.infinite.gateway.core.LifeCycle;
 import com.infinite.gateway.core.executor.BizExecutorManager;
+import com.infinite.gateway.core.netty.handler.HttpPipeliningHandler;
 import com.infinite.gateway.core.netty.handler.IoThreadContextHandler;
 import com.infinite.gateway.core.netty.handler.NettyHttpServerHandler;
 import com.infinite.gateway.core.netty.http2.Http2UpgradeCodecFactory;
 import com.infinite.gateway.core.netty.processor.NettyProcessor;
+import com.infinite.gateway.core.netty.ssl.AlpnNegotiationHandler;
+import com.infinite.gateway.core.netty.ssl.SslContextManager;
+import com.infinite.gateway.core.netty.ssl.SslHandshakeMetrics;
+import com.infinite.gateway.core.netty.ssl.SslHandshakeMetricsHandler;
+import com.infinite.gateway.core.netty.transport.NettyTransport;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.epoll.EpollEventLoopGroup;
-import io.netty.channel.epoll.EpollServerSocketChannel;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.epoll.EpollChannelOption;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.unix.UnixChannelOption;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.codec.http.HttpServerExpectContinueHandler;
 import io.netty.handler.codec.http.HttpServerUpgradeHandler;
-import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import io.netty.incubator.channel.uring.IOUringChannelOption;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
@@ -42,6 +49,8 @@ public class NettyHttpServer implements LifeCycle {
     private EventLoopGroup eventLoopGroupBoss;
     private EventLoopGroup eventLoopGroupWorker;
     private ThreadPoolExecutor bizThreadPoolExecutor;
+    private Http2UpgradeCodecFactory http2CodecFactory;
+    private TransportEnum transport;
     private final NettyProcessor nettyProcessor;
 
     public NettyHttpServer(NettyConfig nettyConfig, NettyProcessor nettyProcessor, Config config) {
@@ -56,27 +65,12 @@ public class NettyHttpServer implements LifeCycle {
      */
     private void init() {
         this.serverBootstrap = new ServerBootstrap();
-        if (SystemUtil.useEpoll()) {
-            // Linux系统使用Epoll模型
-            this.eventLoopGroupBoss = new EpollEventLoopGroup(
-                    nettyConfig.getEventLoopGroupBossNum(),
-                    new DefaultThreadFactory("epoll-netty-server-boss-nio")
-            );
-            this.eventLoopGroupWorker = new EpollEventLoopGroup(
-                    nettyConfig.getEventLoopGroupWorkerNum(),
-                    new DefaultThreadFactory("epoll-netty-server-worker-nio")
-            );
-        } else {
-            // 其他系统使用NIO模型
-            this.eventLoopGroupBoss = new NioEventLoopGroup(
-                    nettyConfig.getEventLoopGroupBossNum(),
-                    new DefaultThreadFactory("default-netty-server-boss-nio")
-            );
-            this.eventLoopGroupWorker = new NioEventLoopGroup(
-                    nettyConfig.getEventLoopGroupWorkerNum(),
-                    new DefaultThreadFactory("default-netty-server-worker-nio")
-            );
-        }
+        // 按 io_uring -> epoll -> nio 的顺序选择可用的传输层
+        this.transport = NettyTransport.resolve(nettyConfig.getTransport());
+        this.eventLoopGroupBoss = NettyTransport.newEventLoopGroup(
+                transport, bossNum(), "netty-server-boss-nio");
+        this.eventLoopGroupWorker = NettyTransport.newEventLoopGroup(
+                transport, nettyConfig.getEventLoopGroupWorkerNum(), "netty-server-worker-nio");
 
         // 初始化业务线程池（用于执行过滤器链等业务逻辑，与IO线程分离）
         BizExecutorManager.getInstance().init(
@@ -84,11 +78,21 @@ public class NettyHttpServer implements LifeCycle {
                 nettyConfig.getBusinessQueueSize()
         );
         this.bizThreadPoolExecutor = BizExecutorManager.getInstance().getBizThreadPoolExecutor();
+        this.http2CodecFactory = Http2UpgradeCodecFactory.getInstance(nettyConfig, bizThreadPoolExecutor, nettyProcessor);
+
+        // 初始化 TLS，证书变更检查与握手指标输出挂在 boss 线程上
+        SslConfig sslConfig = nettyConfig.getSsl();
+        if (sslConfig.isEnabled()) {
+            SslContextManager.getInstance().init(sslConfig, eventLoopGroupBoss);
+            SslHandshakeMetrics.getInstance().startReporter(eventLoopGroupBoss, sslConfig.getMetricsLogInterval());
+        }
 
-        log.info("NettyHttpServer initialized with boss={}, worker={}, bizThreads={}",
-                nettyConfig.getEventLoopGroupBossNum(),
+        log.info("NettyHttpServer initialized with transport={}, boss={}, worker={}, bizThreads={}, ssl={}",
+                transport.getName(),
+                bossNum(),
                 nettyConfig.getEventLoopGroupWorkerNum(),
-                nettyConfig.getBusinessThreadNum());
+                nettyConfig.getBusinessThreadNum(),
+                sslConfig.isEnabled());
     }
 
     /**
@@ -99,38 +103,116 @@ public class NettyHttpServer implements LifeCycle {
     public void start() {
         serverBootstrap
                 .group(eventLoopGroupBoss, eventLoopGroupWorker)
-                // 选择通道类型（Epoll或NIO）
-                .channel(SystemUtil.useEpoll() ? EpollServerSocketChannel.class : NioServerSocketChannel.class)
+                // 选择通道类型（io_uring、Epoll或NIO）
+                .channel(NettyTransport.serverChannelClass(transport))
                 // TCP参数配置
-                .option(ChannelOption.SO_BACKLOG, 1024)          // 连接等待队列大小
+                .option(ChannelOption.SO_BACKLOG, nettyConfig.getSoBacklog()) // 连接等待队列大小
                 .option(ChannelOption.SO_REUSEADDR, true)        // 端口重用
                 .option(ChannelOption.SO_KEEPALIVE, true)        // 保持连接
                 .childOption(ChannelOption.TCP_NODELAY, true)    // 禁用Nagle算法
-                .childOption(ChannelOption.SO_SNDBUF, 65535)     // 发送缓冲区大小
-                .childOption(ChannelOption.SO_RCVBUF, 65535)     // 接收缓冲区大小
                 .localAddress(new InetSocketAddress(config.getPort())) // 绑定端口
                 .childHandler(new ChannelInitializer<SocketChannel>() {
                     @Override
                     protected void initChannel(SocketChannel ch) {
-                        HttpServerCodec http1 = new HttpServerCodec();
-                        Http2UpgradeCodecFactory upgradeFactory =
-                                Http2UpgradeCodecFactory.getInstance(
-                                        config.getNetty().getMaxContentLength(),
-                                        bizThreadPoolExecutor,
-                                        nettyProcessor);
-                        ch.pipeline().addLast(http1);
-                        // http2升级逻辑
-                        ch.pipeline().addLast(new HttpServerUpgradeHandler(http1, upgradeFactory));
-                        // http1.1的逻辑
-                        ch.pipeline().addLast(new HttpServerExpectContinueHandler());
-                        ch.pipeline().addLast(new HttpObjectAggregator(config.getNetty().getMaxContentLength()));
-                        ch.pipeline().addLast(new IoThreadContextHandler());
-                        // 注意：这里不再传递 EventExecutorGroup，而是在 Handler 内部手动提交任务
-                        ch.pipeline().addLast(new NettyHttpServerHandler(nettyProcessor, bizThreadPoolExecutor));
+                        if (nettyConfig.isFlushConsolidationEnabled()) {
+                            // 放在最前面，TLS 加密后的 flush 以及 h2 父连接上各个 stream 的 flush 都会被合并
+                            // 读过程中的 flush 推迟到 channelReadComplete；读之外（业务线程池切回 EventLoop 写响应）的 flush
+                            // 推迟到当前 EventLoop 任务之后执行，同一周期内的多个响应合并为一次 writev
+                            ch.pipeline().addLast(new FlushConsolidationHandler(
+                                    nettyConfig.getFlushConsolidationLimit(), true));
+                        }
+                        if (nettyConfig.getSsl().isEnabled()) {
+                            // TLS：握手完成后根据 ALPN 协商结果装配 h2 或 http1.1
+                            ch.pipeline().addLast(SslContextManager.getInstance().newHandler(ch.alloc()));
+                            ch.pipeline().addLast(new SslHandshakeMetricsHandler());
+                            ch.pipeline().addLast(new AlpnNegotiationHandler(
+                                    NettyHttpServer.this::configureHttp1,
+                                    NettyHttpServer.this::configureHttp2));
+                        } else {
+                            configureCleartext(ch.pipeline());
+                        }
                     }
                 });
-        serverBootstrap.bind().sync();
-        log.info("gateway startup on port {}", this.config.getPort());
+        if (nettyConfig.getSoSndBuf() > 0) {
+            serverBootstrap.childOption(ChannelOption.SO_SNDBUF, nettyConfig.getSoSndBuf()); // 发送缓冲区大小
+        }
+        if (nettyConfig.getSoRcvBuf() > 0) {
+            serverBootstrap.childOption(ChannelOption.SO_RCVBUF, nettyConfig.getSoRcvBuf()); // 接收缓冲区大小
+        }
+        int acceptorNum = 1;
+        if (NettyTransport.isNative(transport)) {
+            boolean ioUring = transport == TransportEnum.IO_URING;
+            if (nettyConfig.getTcpFastOpen() > 0) {
+                serverBootstrap.option(ioUring ? IOUringChannelOption.TCP_FASTOPEN : EpollChannelOption.TCP_FASTOPEN,
+                        nettyConfig.getTcpFastOpen());
+            }
+            if (nettyConfig.getTcpDeferAccept() > 0) {
+                serverBootstrap.option(ioUring ? IOUringChannelOption.TCP_DEFER_ACCEPT : EpollChannelOption.TCP_DEFER_ACCEPT,
+                        nettyConfig.getTcpDeferAccept());
+            }
+            if (nettyConfig.isReusePort()) {
+                serverBootstrap.option(UnixChannelOption.SO_REUSEPORT, true);
+                acceptorNum = bossNum();
+            }
+        } else if (nettyConfig.isReusePort()) {
+            log.warn("SO_REUSEPORT is only supported on Linux epoll/io_uring, fall back to a single listening socket");
+        }
+        // 开启 SO_REUSEPORT 时同一端口绑定多次，每个监听 socket 注册到不同的 boss 线程上，由内核负载均衡新连接
+        for (int i = 0; i < acceptorNum; i++) {
+            serverBootstrap.bind().sync();
+        }
+        log.info("gateway startup on port {}, acceptors={}", this.config.getPort(), acceptorNum);
+    }
+
+    /**
+     * boss 线程数，开启 SO_REUSEPORT 时每个监听 socket 独占一个 boss 线程
+     */
+    private int bossNum() {
+        if (!nettyConfig.isReusePort() || !NettyTransport.isNative(transport)) {
+            return nettyConfig.getEventLoopGroupBossNum();
+        }
+        return nettyConfig.getReusePortAcceptorNum() > 0
+                ? nettyConfig.getReusePortAcceptorNum() : nettyConfig.getEventLoopGroupWorkerNum();
+    }
+
+    /**
+     * 明文连接：http1.1，并支持通过 Upgrade 头升级为 h2c
+     */
+    private void configureCleartext(ChannelPipeline pipeline) {
+        HttpServerCodec http1 = new HttpServerCodec();
+        pipeline.addLast(http1);
+        // http2升级逻辑
+        pipeline.addLast(new HttpServerUpgradeHandler(http1, http2CodecFactory));
+        configureHttp1Handlers(pipeline);
+    }
+
+    /**
+     * TLS 上协商出 http1.1
+     */
+    private void configureHttp1(ChannelPipeline pipeline) {
+        pipeline.addLast(new HttpServerCodec());
+        configureHttp1Handlers(pipeline);
+    }
+
+    /**
+     * http1.1的逻辑
+     */
+    private void configureHttp1Handlers(ChannelPipeline pipeline) {
+        pipeline.addLast(new HttpServerExpectContinueHandler());
+        pipeline.addLast(new HttpObjectAggregator(nettyConfig.getMaxContentLength()));
+        // pipelining 的请求并发转发给下游，响应按请求顺序写回
+        pipeline.addLast(new HttpPipeliningHandler(nettyConfig.getMaxPipelinedRequests()));
+        pipeline.addLast(new IoThreadContextHandler());
+        // 注意：这里不再传递 EventExecutorGroup，而是在 Handler 内部手动提交任务
+        pipeline.addLast(new NettyHttpServerHandler(nettyProcessor, bizThreadPoolExecutor));
+    }
+
+    /**
+     * TLS 上协商出 h2，每个 stream 由 H2ChildChannelInitializer 初始化
+     */
+    private void configureHttp2(ChannelPipeline pipeline) {
+        pipeline.addLast(http2CodecFactory.newFrameCodec());
+        pipeline.addLast(http2CodecFactory.newMultiplexHandler());
     }
 
     /**
@@ -0,0 +1,140 @@
+package com.infinite.gateway.core.netty.handler;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.util.ReferenceCountUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * HTTP/1.1 pipelining 响应排序器（每个连接一个）
+ *
+ * 同一连接上的多个请求会并发转发给下游，但 HTTP/1.1 要求响应按请求顺序返回：
+ * 1. 请求到达时按顺序登记
+ * 2. 响应完成时，如果对应的是最早的未响应请求则直接写出，并继续放行后面已经完成的响应；否则先暂存
+ * 3. 未响应的请求数达到上限时暂停读，直到有响应写出
+ *
+ * 所有方法都在连接的 EventLoop 中执行，无需加锁
+ */
+@Slf4j
+public class HttpPipeliningHandler extends ChannelDuplexHandler {
+
+    private final int maxPipelinedRequests;
+
+    /**
+     * 按到达顺序排列的未响应请求
+     */
+    private final ArrayDeque<FullHttpRequest> inflightRequests = new ArrayDeque<>();
+
+    /**
+     * 已经完成但前面还有请求未响应的响应，按请求引用识别
+     */
+    private final Map<FullHttpRequest, PendingResponse> completedResponses = new IdentityHashMap<>();
+
+    public HttpPipeliningHandler(int maxPipelinedRequests) {
+        this.maxPipelinedRequests = Math.max(maxPipelinedRequests, 1);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof FullHttpRequest) {
+            inflightRequests.addLast((FullHttpRequest) msg);
+            if (inflightRequests.size() >= maxPipelinedRequests) {
+                // 未响应的请求过多，暂停读取，避免单个连接占满业务线程池和下游连接
+                ctx.channel().config().setAutoRead(false);
+            }
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        if (!(msg instanceof PipelinedHttpResponse)) {
+            ctx.write(msg, promise);
+            return;
+        }
+        PipelinedHttpResponse pipelinedResponse = (PipelinedHttpResponse) msg;
+        FullHttpRequest request = pipelinedResponse.getRequest();
+        FullHttpResponse response = pipelinedResponse.getResponse();
+        if (inflightRequests.peekFirst() == request) {
+            inflightRequests.pollFirst();
+            ctx.write(response, promise);
+            // 放行后面已经完成的响应，flush 由调用方的 writeAndFlush 统一触发
+            writeCompletedResponses(ctx);
+            if (!ctx.channel().config().isAutoRead() && inflightRequests.size() < maxPipelinedRequests) {
+                ctx.channel().config().setAutoRead(true);
+            }
+        } else if (isInflight(request)) {
+            completedResponses.put(request, new PendingResponse(response, promise));
+        } else {
+            // 请求已经响应过（或不是本连接的请求），重复的响应直接丢弃，避免打乱后续响应的顺序
+            log.warn("drop duplicate response for request {} {}", request.method(), request.uri());
+            ReferenceCountUtil.release(response);
+            promise.setFailure(new IllegalStateException("response already written for this request"));
+        }
+    }
+
+    private void writeCompletedResponses(ChannelHandlerContext ctx) {
+        while (!inflightRequests.isEmpty()) {
+            PendingResponse pending = completedResponses.remove(inflightRequests.peekFirst());
+            if (pending == null) {
+                return;
+            }
+            inflightRequests.pollFirst();
+            ctx.write(pending.response, pending.promise);
+        }
+    }
+
+    private boolean isInflight(FullHttpRequest request) {
+        for (FullHttpRequest inflightRequest : inflightRequests) {
+            if (inflightRequest == request) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        releasePending();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        releasePending();
+    }
+
+    private void releasePending() {
+        if (completedResponses.isEmpty()) {
+            inflightRequests.clear();
+            return;
+        }
+        ClosedChannelException cause = new ClosedChannelException();
+        for (PendingResponse pending : completedResponses.values()) {
+            ReferenceCountUtil.release(pending.response);
+            pending.promise.tryFailure(cause);
+        }
+        completedResponses.clear();
+        inflightRequests.clear();
+    }
+
+    private static final class PendingResponse {
+
+        private final FullHttpResponse response;
+
+        private final ChannelPromise promise;
+
+        private PendingResponse(FullHttpResponse response, ChannelPromise promise) {
+            this.response = response;
+            this.promise = promise;
+        }
+    }
+}
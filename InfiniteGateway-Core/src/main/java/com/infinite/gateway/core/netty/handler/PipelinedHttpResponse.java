@@ -0,0 +1,24 @@
+package com.infinite.gateway.core.netty.handler;
+
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import lombok.Getter;
+
+/**
+ * 携带所属请求的响应，写回客户端时由 HttpPipeliningHandler 按请求到达顺序放行
+ */
+@Getter
+public class PipelinedHttpResponse {
+
+    /**
+     * 响应对应的请求，只用于按引用识别，不会再读取其内容
+     */
+    private final FullHttpRequest request;
+
+    private final FullHttpResponse response;
+
+    public PipelinedHttpResponse(FullHttpRequest request, FullHttpResponse response) {
+        this.request = request;
+        this.response = response;
+    }
+}
@@ -5,14 +5,12 @@ import com.infinite.gateway.core.netty.handler.NettyHttpServerHandler;
 import com.infinite.gateway.core.netty.processor.NettyProcessor;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
-import io.netty.handler.codec.http.HttpObjectAggregator;
-import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
 
 import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * HTTP/2 子流 Channel 初始化器
- * 将 H2 帧还原为 HttpObject / FullHttpRequest，并复用现有业务链
+ * 由 Http2StreamHandler 直接处理 H2 帧，并复用现有业务链
  */
 public class H2ChildChannelInitializer extends ChannelInitializer<Channel> {
 
@@ -30,12 +28,8 @@ public class H2ChildChannelInitializer extends ChannelInitializer<Channel> {
 
     @Override
     protected void initChannel(Channel ch) {
-        // 将 HTTP/2 帧转换为 HttpObject（HEADERS → HttpRequest，DATA → HttpContent）
-        // true 表示服务端模式
-        ch.pipeline().addLast(new Http2StreamFrameToHttpObjectCodec(true));
-
-        // 聚合 HttpRequest + HttpContent 为 FullHttpRequest
-        ch.pipeline().addLast(new HttpObjectAggregator(maxContentLength));
+        // 直接由 h2 帧组装请求并以 h2 帧写回响应，不再转换为 HttpObject 再聚合
+        ch.pipeline().addLast(new Http2StreamHandler(maxContentLength));
 
         // 在 IO 线程中将 ctx + FullHttpRequest 存入 ThreadLocal，用于拒绝兜底
         ch.pipeline().addLast(new IoThreadContextHandler());
@@ -44,4 +38,3 @@ public class H2ChildChannelInitializer extends ChannelInitializer<Channel> {
         ch.pipeline().addLast(new NettyHttpServerHandler(nettyProcessor, bizThreadPoolExecutor));
     }
 }
-
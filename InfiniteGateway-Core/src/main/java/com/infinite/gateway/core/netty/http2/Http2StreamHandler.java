@@ -0,0 +1,201 @@
+package com.infinite.gateway.core.netty.http2;
+
+import com.infinite.gateway.core.netty.handler.PipelinedHttpResponse;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http2.DefaultHttp2DataFrame;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.DefaultHttp2HeadersFrame;
+import io.netty.handler.codec.http2.Http2DataFrame;
+import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.Http2HeadersFrame;
+import io.netty.handler.codec.http2.HttpConversionUtil;
+import io.netty.util.ReferenceCountUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+
+/**
+ * HTTP/2 子流处理器
+ *
+ * 直接由 Http2HeadersFrame / Http2DataFrame 组装网关请求，响应直接编码为 h2 帧写回，
+ * 不再经过 Http2StreamFrameToHttpObjectCodec + HttpObjectAggregator 的 HttpObject 中转
+ */
+@Slf4j
+public class Http2StreamHandler extends ChannelDuplexHandler {
+
+    private final int maxContentLength;
+
+    /**
+     * 已收到请求头、还在等待请求体的请求
+     */
+    private FullHttpRequest request;
+
+    /**
+     * 已经直接回复了错误响应（请求体过大、缺少伪首部），该 stream 之后的帧全部丢弃
+     */
+    private boolean rejected;
+
+    public Http2StreamHandler(int maxContentLength) {
+        this.maxContentLength = maxContentLength;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof Http2HeadersFrame) {
+            onHeadersRead(ctx, (Http2HeadersFrame) msg);
+        } else if (msg instanceof Http2DataFrame) {
+            onDataRead(ctx, (Http2DataFrame) msg);
+        } else {
+            ctx.fireChannelRead(msg);
+        }
+    }
+
+    private void onHeadersRead(ChannelHandlerContext ctx, Http2HeadersFrame frame) {
+        if (rejected) {
+            return;
+        }
+        if (request == null) {
+            // 请求头
+            Http2Headers headers = frame.headers();
+            if (headers.method() == null || headers.path() == null) {
+                reject(ctx, HttpResponseStatus.BAD_REQUEST);
+                return;
+            }
+            ByteBuf content = frame.isEndStream() ? Unpooled.EMPTY_BUFFER : ctx.alloc().compositeBuffer();
+            request = toFullHttpRequest(headers, content);
+        } else {
+            // 请求体之后的 trailers
+            for (Map.Entry<CharSequence, CharSequence> header : frame.headers()) {
+                request.trailingHeaders().add(header.getKey(), header.getValue());
+            }
+        }
+        if (frame.isEndStream()) {
+            fireRequest(ctx);
+        }
+    }
+
+    private void onDataRead(ChannelHandlerContext ctx, Http2DataFrame frame) {
+        if (rejected || request == null) {
+            frame.release();
+            return;
+        }
+        CompositeByteBuf content = (CompositeByteBuf) request.content();
+        if (content.readableBytes() + frame.content().readableBytes() > maxContentLength) {
+            frame.release();
+            request.release();
+            request = null;
+            reject(ctx, HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE);
+            return;
+        }
+        // 直接把 DATA 帧的 ByteBuf 挂到组合缓冲区上，不做拷贝
+        content.addComponent(true, frame.content());
+        if (frame.isEndStream()) {
+            fireRequest(ctx);
+        }
+    }
+
+    /**
+     * 直接回复错误响应并结束本端的 stream，之后对端发来的 DATA / trailers 不再处理
+     */
+    private void reject(ChannelHandlerContext ctx, HttpResponseStatus status) {
+        rejected = true;
+        ctx.writeAndFlush(new DefaultHttp2HeadersFrame(new DefaultHttp2Headers().status(status.codeAsText()), true));
+    }
+
+    /**
+     * 交给后面的 IoThreadContextHandler / NettyHttpServerHandler 处理，
+     * 业务侧拿到的是后面处理器的 ctx，写响应时才会经过本处理器的 write 编码为 h2 帧
+     */
+    private void fireRequest(ChannelHandlerContext ctx) {
+        FullHttpRequest fullHttpRequest = request;
+        request = null;
+        ctx.fireChannelRead(fullHttpRequest);
+    }
+
+    /**
+     * 伪首部 :method / :path / :authority 直接映射为请求行和 Host，其余首部原样拷贝，
+     * 不附带 HttpConversionUtil 的 x-http2-* 扩展首部（这些首部会被转发给下游）
+     */
+    private FullHttpRequest toFullHttpRequest(Http2Headers http2Headers, ByteBuf content) {
+        HttpHeaders headers = new DefaultHttpHeaders(false);
+        StringBuilder cookie = null;
+        for (Map.Entry<CharSequence, CharSequence> header : http2Headers) {
+            CharSequence name = header.getKey();
+            if (Http2Headers.PseudoHeaderName.hasPseudoHeaderFormat(name)) {
+                continue;
+            }
+            if (HttpHeaderNames.COOKIE.contentEqualsIgnoreCase(name)) {
+                // h2 允许把 cookie 拆成多个首部，转成 http1.1 时需要合并
+                cookie = cookie == null ? new StringBuilder() : cookie.append("; ");
+                cookie.append(header.getValue());
+                continue;
+            }
+            headers.add(name, header.getValue());
+        }
+        if (cookie != null) {
+            headers.set(HttpHeaderNames.COOKIE, cookie);
+        }
+        if (http2Headers.authority() != null && !headers.contains(HttpHeaderNames.HOST)) {
+            headers.set(HttpHeaderNames.HOST, http2Headers.authority());
+        }
+        return new DefaultFullHttpRequest(HttpVersion.HTTP_1_1,
+                HttpMethod.valueOf(http2Headers.method().toString()),
+                http2Headers.path().toString(),
+                content, headers, new DefaultHttpHeaders(false));
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        if (msg instanceof PipelinedHttpResponse) {
+            // h2 每个 stream 只有一个请求，不需要排序
+            msg = ((PipelinedHttpResponse) msg).getResponse();
+        }
+        if (!(msg instanceof FullHttpResponse)) {
+            ctx.write(msg, promise);
+            return;
+        }
+        FullHttpResponse response = (FullHttpResponse) msg;
+        try {
+            // 会过滤掉 Connection、Keep-Alive 等 h2 中禁止出现的连接级首部
+            Http2Headers headers = HttpConversionUtil.toHttp2Headers(response, false);
+            ByteBuf content = response.content();
+            if (!content.isReadable()) {
+                ctx.write(new DefaultHttp2HeadersFrame(headers, true), promise);
+                return;
+            }
+            ctx.write(new DefaultHttp2HeadersFrame(headers, false));
+            ctx.write(new DefaultHttp2DataFrame(content.retain(), true), promise);
+        } finally {
+            ReferenceCountUtil.release(response);
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (request != null) {
+            request.release();
+            request = null;
+        }
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        log.error("http2 stream error", cause);
+        ctx.close();
+    }
+}
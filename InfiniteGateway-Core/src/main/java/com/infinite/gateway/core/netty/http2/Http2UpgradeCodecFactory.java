@@ -1,5 +1,6 @@
 package com.infinite.gateway.core.netty.http2;
 
+import com.infinite.gateway.config.config.netty.NettyConfig;
 import com.infinite.gateway.core.netty.processor.NettyProcessor;
 import io.netty.handler.codec.http.HttpServerUpgradeHandler;
 import io.netty.handler.codec.http2.Http2CodecUtil;
@@ -7,6 +8,7 @@ import io.netty.handler.codec.http2.Http2FrameCodec;
 import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
 import io.netty.handler.codec.http2.Http2MultiplexHandler;
 import io.netty.handler.codec.http2.Http2ServerUpgradeCodec;
+import io.netty.handler.codec.http2.Http2Settings;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.concurrent.ThreadPoolExecutor;
@@ -35,30 +37,39 @@ public class Http2UpgradeCodecFactory implements HttpServerUpgradeHandler.Upgrad
     private final ThreadPoolExecutor bizThreadPoolExecutor;
     private final NettyProcessor nettyProcessor;
 
+    /**
+     * 服务端通告给客户端的 SETTINGS
+     */
+    private final Http2Settings initialSettings;
+
     /**
      * 单例实例
      */
     private static Http2UpgradeCodecFactory instance;
 
-    private Http2UpgradeCodecFactory(int maxContentLength,
+    private Http2UpgradeCodecFactory(NettyConfig nettyConfig,
                                      ThreadPoolExecutor bizThreadPoolExecutor,
                                      NettyProcessor nettyProcessor) {
-        this.maxContentLength = maxContentLength;
+        this.maxContentLength = nettyConfig.getMaxContentLength();
         this.bizThreadPoolExecutor = bizThreadPoolExecutor;
         this.nettyProcessor = nettyProcessor;
+        this.initialSettings = new Http2Settings()
+                .maxConcurrentStreams(nettyConfig.getHttp2MaxConcurrentStreams())
+                .initialWindowSize(nettyConfig.getHttp2InitialWindowSize())
+                .headerTableSize(nettyConfig.getHttp2HeaderTableSize());
     }
 
     /**
      * 获取单例实例（双检锁）
      */
-    public static Http2UpgradeCodecFactory getInstance(int maxContentLength,
+    public static Http2UpgradeCodecFactory getInstance(NettyConfig nettyConfig,
                                                        ThreadPoolExecutor bizThreadPoolExecutor,
                                                        NettyProcessor nettyProcessor) {
         if (instance == null) {
             synchronized (Http2UpgradeCodecFactory.class) {
                 if (instance == null) {
-                    instance = new Http2UpgradeCodecFactory(maxContentLength, bizThreadPoolExecutor, nettyProcessor);
-                    log.info("Http2UpgradeCodecFactory singleton initialized");
+                    instance = new Http2UpgradeCodecFactory(nettyConfig, bizThreadPoolExecutor, nettyProcessor);
+                    log.info("Http2UpgradeCodecFactory singleton initialized, settings={}", instance.initialSettings);
                 }
             }
         }
@@ -68,19 +79,31 @@ public class Http2UpgradeCodecFactory implements HttpServerUpgradeHandler.Upgrad
     @Override
     public HttpServerUpgradeHandler.UpgradeCodec newUpgradeCodec(CharSequence protocol) {
         if (Http2CodecUtil.HTTP_UPGRADE_PROTOCOL_NAME.equals(protocol)) {
-            // 为本次升级创建新的 Http2FrameCodec（父通道编解码器）
-            Http2FrameCodec http2FrameCodec = Http2FrameCodecBuilder.forServer().build();
-            // 为本次升级创建新的 Http2MultiplexHandler（多路复用处理器）
-            // 每个 HTTP/2 stream 会在子 Channel 上由 H2ChildChannelInitializer 初始化
-            Http2MultiplexHandler multiplexHandler = new Http2MultiplexHandler(
-                    new H2ChildChannelInitializer(
-                            maxContentLength,
-                            bizThreadPoolExecutor,
-                            nettyProcessor));
             // 返回升级编解码器
-            return new Http2ServerUpgradeCodec(http2FrameCodec, multiplexHandler);
+            return new Http2ServerUpgradeCodec(newFrameCodec(), newMultiplexHandler());
         }
         return null;
     }
+
+    /**
+     * 为每个 h2 连接创建新的 Http2FrameCodec（父通道编解码器），h2c 升级与 TLS 上的 ALPN 共用
+     */
+    public Http2FrameCodec newFrameCodec() {
+        return Http2FrameCodecBuilder.forServer()
+                .initialSettings(initialSettings)
+                .build();
+    }
+
+    /**
+     * 为每个 h2 连接创建新的 Http2MultiplexHandler（多路复用处理器）
+     * 每个 HTTP/2 stream 会在子 Channel 上由 H2ChildChannelInitializer 初始化
+     */
+    public Http2MultiplexHandler newMultiplexHandler() {
+        return new Http2MultiplexHandler(
+                new H2ChildChannelInitializer(
+                        maxContentLength,
+                        bizThreadPoolExecutor,
+                        nettyProcessor));
+    }
 }
 
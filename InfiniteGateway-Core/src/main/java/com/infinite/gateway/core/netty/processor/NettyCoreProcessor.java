@@ -8,7 +8,9 @@ import com.infinite.gateway.core.context.GatewayContext;
 import com.infinite.gateway.core.helper.RequestHelper;
 import com.infinite.gateway.core.helper.ResponseHelper;
 import com.infinite.gateway.core.request.GatewayRequest;
+import com.infinite.gateway.core.request.id.RequestIdGeneratorManager;
 import com.infinite.gateway.core.filter.FilterChainFactory;
+import com.infinite.gateway.core.netty.handler.PipelinedHttpResponse;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.EventLoop;
@@ -16,6 +18,8 @@ import io.netty.handler.codec.http.*;
 import io.netty.util.ReferenceCountUtil;
 import lombok.extern.slf4j.Slf4j;
 
+import static com.infinite.gateway.common.constant.HttpConstant.HTTP_REQUEST_ID;
+
 /**
  * NettyCoreProcessor 是负责在基于 Netty 的服务器中处理 HTTP 请求的组件。
  */
@@ -32,6 +36,7 @@ public class  NettyCoreProcessor implements NettyProcessor {
      */
     @Override
     public void process(ChannelHandlerContext ctx, FullHttpRequest request) {
+        GatewayContext gatewayContext = null;
         try {
             // 1. 构建网关上下文（包含请求信息、服务路由等）
             // 1.1. 通过请求URI匹配路由规则
@@ -42,8 +47,8 @@ public class  NettyCoreProcessor implements NettyProcessor {
                     request,
                     ctx
             );
-            // 1.3. 创建网关上下文（包含连接是否保持长连接）
-            GatewayContext gatewayContext = new GatewayContext(
+            // 1.3. 从对象池获取网关上下文（包含连接是否保持长连接）
+            gatewayContext = GatewayContext.newInstance(
                     ctx,
                     gatewayRequest,
                     route,
@@ -59,6 +64,7 @@ public class  NettyCoreProcessor implements NettyProcessor {
         } catch (GatewayException e) {
             // 4. 处理已知网关异常（如路由未找到、流控限制等）
             log.error("处理错误 {} {}", e.getCode(), e.getCode().getMessage());
+            releaseUpstreamStats(gatewayContext);
             // 构建对应的HTTP错误响应
             FullHttpResponse httpResponse = ResponseHelper.buildHttpResponse(e.getCode());
             // 发送响应并释放资源
@@ -66,6 +72,7 @@ public class  NettyCoreProcessor implements NettyProcessor {
         } catch (Throwable t) {
             // 5. 处理未知异常（兜底处理）
             log.error("处理未知错误", t);
+            releaseUpstreamStats(gatewayContext);
             // 构建500内部错误响应
             FullHttpResponse httpResponse = ResponseHelper.buildHttpResponse(ResponseCode.INTERNAL_ERROR);
             // 发送响应并释放资源
@@ -73,11 +80,21 @@ public class  NettyCoreProcessor implements NettyProcessor {
         }
     }
 
+    /**
+     * 负载均衡之后、发往下游之前的过滤器抛出异常时，扣减选中实例的在途请求数
+     */
+    private void releaseUpstreamStats(GatewayContext gatewayContext) {
+        if (gatewayContext != null) {
+            gatewayContext.releaseUpstreamStats();
+        }
+    }
+
     /**
      * 发送HTTP响应并释放资源
      *
      * 注意：此方法可能在业务线程池中被调用（异常处理时），
      * 因此需要确保写操作在EventLoop线程中执行
+     * 错误响应同样遵循 keep-alive 语义，避免客户端在每次限流拒绝后重新建连
      *
      * @param ctx Netty通道上下文
      * @param request HTTP请求对象
@@ -86,11 +103,20 @@ public class  NettyCoreProcessor implements NettyProcessor {
     private void doWriteAndRelease(ChannelHandlerContext ctx, FullHttpRequest request, FullHttpResponse httpResponse) {
         // 获取Channel对应的EventLoop
         EventLoop eventLoop = ctx.channel().eventLoop();
+        boolean keepAlive = HttpUtil.isKeepAlive(request);
+        // 路由未命中时还没有生成请求ID
+        httpResponse.headers().set(HTTP_REQUEST_ID,
+                RequestIdGeneratorManager.getInstance().resolve(request.headers().get(HTTP_REQUEST_ID)));
 
         // 确保写操作在EventLoop线程中执行（线程边界控制）
         eventLoop.execute(() -> {
-            // 发送响应到客户端，并在发送完成后关闭连接
-            ctx.writeAndFlush(httpResponse).addListener(ChannelFutureListener.CLOSE);
+            if (keepAlive) {
+                httpResponse.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+                ctx.writeAndFlush(new PipelinedHttpResponse(request, httpResponse));
+            } else {
+                // 短连接：发送响应后关闭连接
+                ctx.writeAndFlush(new PipelinedHttpResponse(request, httpResponse)).addListener(ChannelFutureListener.CLOSE);
+            }
         });
 
         // 释放请求资源（可以在当前线程执行）
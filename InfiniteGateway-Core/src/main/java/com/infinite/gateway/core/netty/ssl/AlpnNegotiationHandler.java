@@ -0,0 +1,37 @@
+package com.infinite.gateway.core.netty.ssl;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.ApplicationProtocolNegotiationHandler;
+
+import java.util.function.Consumer;
+
+/**
+ * TLS 握手完成后根据 ALPN 协商结果装配 pipeline
+ * 客户端不支持 ALPN 时按 http1.1 处理
+ */
+public class AlpnNegotiationHandler extends ApplicationProtocolNegotiationHandler {
+
+    private final Consumer<ChannelPipeline> http1Configurer;
+
+    private final Consumer<ChannelPipeline> http2Configurer;
+
+    public AlpnNegotiationHandler(Consumer<ChannelPipeline> http1Configurer,
+                                  Consumer<ChannelPipeline> http2Configurer) {
+        super(ApplicationProtocolNames.HTTP_1_1);
+        this.http1Configurer = http1Configurer;
+        this.http2Configurer = http2Configurer;
+    }
+
+    @Override
+    protected void configurePipeline(ChannelHandlerContext ctx, String protocol) {
+        if (ApplicationProtocolNames.HTTP_2.equals(protocol)) {
+            http2Configurer.accept(ctx.pipeline());
+        } else if (ApplicationProtocolNames.HTTP_1_1.equals(protocol)) {
+            http1Configurer.accept(ctx.pipeline());
+        } else {
+            throw new IllegalStateException("unsupported application protocol: " + protocol);
+        }
+    }
+}
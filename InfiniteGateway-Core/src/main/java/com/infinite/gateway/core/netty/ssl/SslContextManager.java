@@ -0,0 +1,240 @@
+package com.infinite.gateway.core.netty.ssl;
+
+import com.infinite.gateway.config.config.netty.SslConfig;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.EventLoopGroup;
+import io.netty.handler.codec.http2.Http2SecurityUtil;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.OpenSslSessionContext;
+import io.netty.handler.ssl.OpenSslSessionStats;
+import io.netty.handler.ssl.OpenSslSessionTicketKey;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.SslProvider;
+import io.netty.handler.ssl.SupportedCipherSuiteFilter;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.net.ssl.SSLSessionContext;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 服务端 SslContext 管理器
+ *
+ * 1. 优先使用 OpenSSL（BoringSSL）引擎，握手和加解密都比 JDK 实现快得多，不可用时回退到 JDK
+ * 2. 通过 ALPN 协商 h2 / http1.1
+ * 3. 统一配置会话缓存和会话票据密钥，多节点共享票据密钥后客户端可以跨节点恢复会话
+ * 4. 定时检查证书文件，变更后重建 SslContext，新连接使用新证书，已建立的连接不受影响
+ */
+@Slf4j
+public class SslContextManager {
+
+    private static final SslContextManager INSTANCE = new SslContextManager();
+
+    /**
+     * 单组会话票据密钥长度：16 字节名称 + 16 字节 HMAC 密钥 + 16 字节 AES 密钥
+     */
+    private static final int TICKET_KEY_LENGTH = 48;
+
+    private SslConfig sslConfig;
+
+    private volatile SslContext sslContext;
+
+    /**
+     * 初始化时确定的 SSL 引擎，重新加载证书时沿用
+     */
+    private SslProvider sslProvider;
+
+    /**
+     * 重新加载证书前的旧 SslContext 上累计的会话恢复数
+     */
+    private final AtomicLong retiredResumedSessions = new AtomicLong();
+
+    /**
+     * 当前 SslContext 对应的证书、私钥、票据密钥文件的修改时间
+     */
+    private long lastModified;
+
+    private SslContextManager() {
+    }
+
+    public static SslContextManager getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 初始化 SslContext，并在给定的事件循环上定时检查证书是否变更
+     *
+     * @param sslConfig TLS 配置
+     * @param eventLoopGroup 用于执行检查任务的事件循环组
+     */
+    public void init(SslConfig sslConfig, EventLoopGroup eventLoopGroup) {
+        validate(sslConfig);
+        this.sslConfig = sslConfig;
+        this.sslProvider = resolveProvider();
+        this.lastModified = currentLastModified();
+        this.sslContext = buildSslContext();
+        if (sslConfig.getCertReloadInterval() > 0) {
+            eventLoopGroup.next().scheduleWithFixedDelay(this::reloadIfModified,
+                    sslConfig.getCertReloadInterval(), sslConfig.getCertReloadInterval(), TimeUnit.MILLISECONDS);
+        }
+        log.info("SslContextManager initialized, provider={}, sessionCacheSize={}, sessionTimeout={}s, sharedTicketKeys={}",
+                providerName(),
+                sslConfig.getSessionCacheSize(),
+                sslConfig.getSessionTimeout(),
+                sslConfig.getSessionTicketKeyFile() != null);
+    }
+
+    /**
+     * 为新连接创建 SslHandler
+     */
+    public SslHandler newHandler(ByteBufAllocator alloc) {
+        SslHandler sslHandler = sslContext.newHandler(alloc);
+        sslHandler.setHandshakeTimeoutMillis(sslConfig.getHandshakeTimeout());
+        return sslHandler;
+    }
+
+    /**
+     * 当前会话缓存上下文，OpenSSL 引擎下可以进一步拿到会话命中等统计信息
+     */
+    public SSLSessionContext sessionContext() {
+        return sslContext.sessionContext();
+    }
+
+    private void reloadIfModified() {
+        try {
+            long modified = currentLastModified();
+            if (modified == lastModified) {
+                return;
+            }
+            SslContext previous = this.sslContext;
+            this.sslContext = buildSslContext();
+            this.lastModified = modified;
+            retiredResumedSessions.addAndGet(resumedSessions(previous));
+            log.info("ssl certificate reloaded, certChainFile={}", sslConfig.getCertChainFile());
+        } catch (Throwable t) {
+            // 证书可能正在被写入，保留旧的 SslContext，下次检查时重试
+            log.error("reload ssl certificate error, keep using the previous one", t);
+        }
+    }
+
+    private SslContext buildSslContext() {
+        try {
+            SslContext context = SslContextBuilder
+                    .forServer(new File(sslConfig.getCertChainFile()), new File(sslConfig.getPrivateKeyFile()), sslConfig.getKeyPassword())
+                    .sslProvider(sslProvider)
+                    .ciphers(Http2SecurityUtil.CIPHERS, SupportedCipherSuiteFilter.INSTANCE)
+                    .sessionCacheSize(sslConfig.getSessionCacheSize())
+                    .sessionTimeout(sslConfig.getSessionTimeout())
+                    .applicationProtocolConfig(new ApplicationProtocolConfig(
+                            ApplicationProtocolConfig.Protocol.ALPN,
+                            ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+                            ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
+                            ApplicationProtocolNames.HTTP_2,
+                            ApplicationProtocolNames.HTTP_1_1))
+                    .build();
+            applyTicketKeys(context);
+            return context;
+        } catch (Exception e) {
+            throw new IllegalStateException("build ssl context error", e);
+        }
+    }
+
+    /**
+     * 加载共享的会话票据密钥，JDK 引擎不支持自定义票据密钥，只能依赖会话缓存
+     */
+    private void applyTicketKeys(SslContext context) throws Exception {
+        if (sslConfig.getSessionTicketKeyFile() == null) {
+            return;
+        }
+        if (!(context.sessionContext() instanceof OpenSslSessionContext)) {
+            log.warn("session ticket keys are only supported by the OpenSSL provider, ignore {}", sslConfig.getSessionTicketKeyFile());
+            return;
+        }
+        byte[] keys = Files.readAllBytes(new File(sslConfig.getSessionTicketKeyFile()).toPath());
+        if (keys.length == 0 || keys.length % TICKET_KEY_LENGTH != 0) {
+            throw new IllegalArgumentException("session ticket key file length must be a multiple of " + TICKET_KEY_LENGTH);
+        }
+        int size = OpenSslSessionTicketKey.NAME_SIZE;
+        OpenSslSessionTicketKey[] ticketKeys = new OpenSslSessionTicketKey[keys.length / TICKET_KEY_LENGTH];
+        for (int i = 0; i < ticketKeys.length; i++) {
+            int offset = i * TICKET_KEY_LENGTH;
+            ticketKeys[i] = new OpenSslSessionTicketKey(
+                    Arrays.copyOfRange(keys, offset, offset + size),
+                    Arrays.copyOfRange(keys, offset + size, offset + size * 2),
+                    Arrays.copyOfRange(keys, offset + size * 2, offset + size * 3));
+        }
+        ((OpenSslSessionContext) context.sessionContext()).setTicketKeys(ticketKeys);
+    }
+
+    /**
+     * 是否使用 OpenSSL 引擎
+     */
+    public boolean isOpenSsl() {
+        return sslProvider == SslProvider.OPENSSL;
+    }
+
+    /**
+     * OpenSSL 引擎下由会话上下文统计的累计会话恢复数（会话缓存命中 + 会话票据恢复），JDK 引擎返回 0
+     */
+    public long resumedSessions() {
+        SslContext context = this.sslContext;
+        return context == null ? 0 : retiredResumedSessions.get() + resumedSessions(context);
+    }
+
+    private static long resumedSessions(SslContext context) {
+        if (!(context.sessionContext() instanceof OpenSslSessionContext)) {
+            return 0;
+        }
+        OpenSslSessionStats stats = ((OpenSslSessionContext) context.sessionContext()).stats();
+        return stats.hits() + stats.ticketKeyResume();
+    }
+
+    /**
+     * 证书和私钥缺失时在启动阶段直接失败，避免到 SslContextBuilder 内部才抛出难以定位的异常
+     */
+    private static void validate(SslConfig sslConfig) {
+        checkFile("certChainFile", sslConfig.getCertChainFile());
+        checkFile("privateKeyFile", sslConfig.getPrivateKeyFile());
+    }
+
+    private static void checkFile(String name, String path) {
+        if (path == null || path.isBlank()) {
+            throw new IllegalArgumentException("netty.ssl." + name + " must be configured when ssl is enabled");
+        }
+        File file = new File(path);
+        if (!file.isFile() || !file.canRead()) {
+            throw new IllegalArgumentException("netty.ssl." + name + " is not a readable file: " + path);
+        }
+    }
+
+    private SslProvider resolveProvider() {
+        if (!sslConfig.isPreferOpenSsl()) {
+            return SslProvider.JDK;
+        }
+        if (!OpenSsl.isAvailable()) {
+            log.warn("OpenSSL is not available, fall back to JDK provider", OpenSsl.unavailabilityCause());
+            return SslProvider.JDK;
+        }
+        return SslProvider.OPENSSL;
+    }
+
+    private String providerName() {
+        return sslProvider == SslProvider.OPENSSL ? OpenSsl.versionString() : SslProvider.JDK.name();
+    }
+
+    private long currentLastModified() {
+        long modified = new File(sslConfig.getCertChainFile()).lastModified();
+        modified = 31 * modified + new File(sslConfig.getPrivateKeyFile()).lastModified();
+        if (sslConfig.getSessionTicketKeyFile() != null) {
+            modified = 31 * modified + new File(sslConfig.getSessionTicketKeyFile()).lastModified();
+        }
+        return modified;
+    }
+}
@@ -0,0 +1,119 @@
+package com.infinite.gateway.core.netty.ssl;
+
+import io.netty.channel.EventLoopGroup;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TLS 握手指标
+ *
+ * 统计握手成功数、失败数、会话恢复数以及握手耗时，按固定间隔输出握手吞吐和会话恢复率
+ */
+@Slf4j
+public class SslHandshakeMetrics {
+
+    private static final SslHandshakeMetrics INSTANCE = new SslHandshakeMetrics();
+
+    private final LongAdder handshakes = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * JDK 引擎下按连接判断的会话恢复数，OpenSSL 引擎的恢复数从会话上下文统计中读取
+     */
+    private final LongAdder resumed = new LongAdder();
+
+    private final LongAdder handshakeNanos = new LongAdder();
+
+    /**
+     * 上次输出时的计数，用于计算区间内的增量
+     */
+    private long lastHandshakes;
+
+    private long lastResumed;
+
+    private long lastReportTime = System.nanoTime();
+
+    private SslHandshakeMetrics() {
+    }
+
+    public static SslHandshakeMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 定时输出握手指标
+     *
+     * @param eventLoopGroup 用于执行输出任务的事件循环组
+     * @param interval 输出间隔，单位毫秒
+     */
+    public void startReporter(EventLoopGroup eventLoopGroup, long interval) {
+        if (interval <= 0) {
+            return;
+        }
+        eventLoopGroup.next().scheduleAtFixedRate(this::report, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void recordSuccess(boolean isResumed, long costNanos) {
+        handshakes.increment();
+        handshakeNanos.add(costNanos);
+        if (isResumed) {
+            resumed.increment();
+        }
+    }
+
+    public void recordFailure() {
+        failures.increment();
+    }
+
+    public long getHandshakes() {
+        return handshakes.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public long getResumed() {
+        return resumed.sum() + SslContextManager.getInstance().resumedSessions();
+    }
+
+    /**
+     * 累计会话恢复率
+     */
+    public double getResumptionRate() {
+        long total = handshakes.sum();
+        return total == 0 ? 0 : (double) getResumed() / total;
+    }
+
+    /**
+     * 累计平均握手耗时，单位微秒
+     */
+    public long getAvgHandshakeMicros() {
+        long total = handshakes.sum();
+        return total == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(handshakeNanos.sum() / total);
+    }
+
+    private void report() {
+        long now = System.nanoTime();
+        long totalHandshakes = handshakes.sum();
+        long totalResumed = getResumed();
+        long intervalHandshakes = totalHandshakes - lastHandshakes;
+        long intervalResumed = totalResumed - lastResumed;
+        double seconds = (now - lastReportTime) / 1e9;
+        lastHandshakes = totalHandshakes;
+        lastResumed = totalResumed;
+        lastReportTime = now;
+        if (intervalHandshakes == 0) {
+            return;
+        }
+        log.info("ssl handshake metrics: throughput={}/s, resumptionRate={}%, avgCost={}us, total={}, failures={}",
+                String.format("%.1f", intervalHandshakes / seconds),
+                String.format("%.1f", intervalResumed * 100.0 / intervalHandshakes),
+                getAvgHandshakeMicros(),
+                totalHandshakes,
+                failures.sum());
+    }
+}
@@ -0,0 +1,46 @@
+package com.infinite.gateway.core.netty.ssl;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.SslHandshakeCompletionEvent;
+
+import javax.net.ssl.SSLSession;
+
+/**
+ * 记录单个连接的握手结果，握手完成后从 pipeline 中移除自身
+ *
+ * 会话恢复的判断：OpenSSL 引擎的会话创建时间只精确到秒，同一秒内的完整握手会被误判为恢复，
+ * 因此 OpenSSL 引擎下由 SslContextManager 从会话上下文的统计中读取；
+ * JDK 引擎的创建时间精确到毫秒，恢复出来的会话创建时间早于本次握手开始的时间
+ */
+public class SslHandshakeMetricsHandler extends ChannelInboundHandlerAdapter {
+
+    private long startNanos;
+
+    private long startMillis;
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        startNanos = System.nanoTime();
+        startMillis = System.currentTimeMillis();
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof SslHandshakeCompletionEvent) {
+            if (((SslHandshakeCompletionEvent) evt).isSuccess()) {
+                boolean resumed = false;
+                if (!SslContextManager.getInstance().isOpenSsl()) {
+                    SSLSession session = ctx.pipeline().get(SslHandler.class).engine().getSession();
+                    resumed = session.getCreationTime() < startMillis;
+                }
+                SslHandshakeMetrics.getInstance().recordSuccess(resumed, System.nanoTime() - startNanos);
+            } else {
+                SslHandshakeMetrics.getInstance().recordFailure();
+            }
+            ctx.pipeline().remove(this);
+        }
+        super.userEventTriggered(ctx, evt);
+    }
+}
@@ -0,0 +1,102 @@
+package com.infinite.gateway.core.netty.transport;
+
+import com.infinite.gateway.common.enums.TransportEnum;
+import com.infinite.gateway.common.util.SystemUtil;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.incubator.channel.uring.IOUring;
+import io.netty.incubator.channel.uring.IOUringEventLoopGroup;
+import io.netty.incubator.channel.uring.IOUringServerSocketChannel;
+import io.netty.incubator.channel.uring.IOUringSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Netty 传输层选择
+ *
+ * 按 io_uring -> epoll -> nio 的顺序回退：配置了 io_uring 但内核或平台不支持时使用 epoll，epoll 也不可用时使用 nio
+ */
+@Slf4j
+public final class NettyTransport {
+
+    private NettyTransport() {
+    }
+
+    /**
+     * 解析实际可用的传输层
+     *
+     * @param configured 配置的传输层，为空或无法识别时按 epoll 处理
+     */
+    public static TransportEnum resolve(String configured) {
+        TransportEnum transport = TransportEnum.EPOLL;
+        if (configured != null) {
+            try {
+                transport = TransportEnum.valueOf(configured.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                log.warn("unknown transport {}, use {}", configured, TransportEnum.EPOLL.getName());
+            }
+        }
+        if (transport == TransportEnum.IO_URING && !SystemUtil.useIoUring()) {
+            log.warn("io_uring is not available, fall back to epoll", IOUring.unavailabilityCause());
+            transport = TransportEnum.EPOLL;
+        }
+        if (transport == TransportEnum.EPOLL && !SystemUtil.useEpoll()) {
+            transport = TransportEnum.NIO;
+        }
+        return transport;
+    }
+
+    /**
+     * 创建事件循环组
+     *
+     * @param transport 传输层
+     * @param threads 线程数
+     * @param name 线程名，会加上传输层前缀，如 epoll-netty-server-worker-nio
+     */
+    public static EventLoopGroup newEventLoopGroup(TransportEnum transport, int threads, String name) {
+        switch (transport) {
+            case IO_URING:
+                return new IOUringEventLoopGroup(threads, new DefaultThreadFactory("iouring-" + name));
+            case EPOLL:
+                return new EpollEventLoopGroup(threads, new DefaultThreadFactory("epoll-" + name));
+            default:
+                return new NioEventLoopGroup(threads, new DefaultThreadFactory("default-" + name));
+        }
+    }
+
+    public static Class<? extends ServerChannel> serverChannelClass(TransportEnum transport) {
+        switch (transport) {
+            case IO_URING:
+                return IOUringServerSocketChannel.class;
+            case EPOLL:
+                return EpollServerSocketChannel.class;
+            default:
+                return NioServerSocketChannel.class;
+        }
+    }
+
+    public static Class<? extends SocketChannel> socketChannelClass(TransportEnum transport) {
+        switch (transport) {
+            case IO_URING:
+                return IOUringSocketChannel.class;
+            case EPOLL:
+                return EpollSocketChannel.class;
+            default:
+                return NioSocketChannel.class;
+        }
+    }
+
+    /**
+     * 是否为基于 Linux 原生 socket 的传输层，支持 SO_REUSEPORT、TCP_FASTOPEN 等选项
+     */
+    public static boolean isNative(TransportEnum transport) {
+        return transport == TransportEnum.IO_URING || transport == TransportEnum.EPOLL;
+    }
+}
@@ -3,96 +3,119 @@ package com.infinite.gateway.core.request;
 import com.alibaba.nacos.common.utils.StringUtils;
 import com.infinite.gateway.common.constant.HttpConstant;
 import com.infinite.gateway.common.pojo.ServiceDefinition;
-import io.netty.buffer.ByteBuf;
 import io.netty.handler.codec.http.*;
 import io.netty.handler.codec.http.cookie.ServerCookieDecoder;
+import io.netty.util.internal.ObjectPool;
+import lombok.AccessLevel;
 import lombok.Data;
-import org.asynchttpclient.Request;
-import org.asynchttpclient.RequestBuilder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
+import java.net.InetSocketAddress;
 import java.nio.charset.Charset;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
-import static com.infinite.gateway.common.constant.BasicConstant.DATE_DEFAULT_FORMATTER;
+import static com.infinite.gateway.common.constant.HttpConstant.HTTP_FORWARD_SEPARATOR;
 
 
 /**
  * 网关请求
+ *
+ * 对象通过 Netty 的对象池复用，由 {@link #newInstance} 获取，随 GatewayContext 一起回收
  */
 @Data
 public class GatewayRequest {
 
+    private static final ObjectPool<GatewayRequest> RECYCLER = ObjectPool.newPool(GatewayRequest::new);
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final ObjectPool.Handle<GatewayRequest> handle;
+
     /**
-     * 请求流水号
+     * 请求流水号，沿用客户端带过来的 X-Request-Id，没有时由 RequestIdGenerator 生成
      */
-    private final String id;
+    private CharSequence id;
 
     /**
      * 服务名
      */
-    private final ServiceDefinition serviceDefinition;
+    private ServiceDefinition serviceDefinition;
 
     /**
      * 请求进入网关时间
      */
-    private final long beginTime;
+    private long beginTime;
+
+    /**
+     * 字符集，首次使用时解析
+     */
+    private Charset charset;
 
     /**
-     * 字符集
+     * 客户端的IP，主要用于做流控、黑白名单，首次使用时解析
      */
-    private final Charset charset;
+    private String clientIp;
 
     /**
-     * 客户端的IP，主要用于做流控、黑白名单
+     * 客户端连接的远端地址
      */
-    private final String clientIp;
+    private InetSocketAddress remoteAddress;
+
+    /**
+     * 客户端连接是否为 TLS
+     */
+    private boolean secure;
 
     /**
      * 请求的地址：IP:port
      */
-    private final String host;
+    private String host;
 
     /**
      * 请求的路径   /XXX/XXX/XX
      */
-    private final String path;
+    private String path;
+
+    /**
+     * 原始查询串（不含 ?），没有查询参数时为 null，转发给下游时原样透传
+     */
+    private String rawQuery;
 
     /**
      * URI：统一资源标识符，/XXX/XXX/XXX?attr1=value&attr2=value2
      */
-    private final String uri;
+    private String uri;
 
     /**
      * 请求方法 POST/PUT/GET
      */
-    private final HttpMethod method;
+    private HttpMethod method;
 
     /**
-     * 请求的格式
+     * 请求的格式，首次使用时解析
      */
-    private final String contentType;
+    private String contentType;
 
     /**
      * 请求头信息
      */
-    private final HttpHeaders headers;
+    private HttpHeaders headers;
 
     /**
-     * 参数解析器
+     * 参数解析器，只有过滤器需要查询参数时才创建
      */
-    private final QueryStringDecoder queryStringDecoder;
+    private QueryStringDecoder queryStringDecoder;
 
     /**
      * FullHttpRequest
      */
-    private final FullHttpRequest fullHttpRequest;
-
-    /**
-     * 构建下游请求
-     */
-    private final RequestBuilder requestBuilder;
+    private FullHttpRequest fullHttpRequest;
 
     /**
      * 请求体
@@ -129,36 +152,117 @@ public class GatewayRequest {
      */
     private boolean isGray;
 
-    public GatewayRequest(ServiceDefinition serviceDefinition, Charset charset, String clientIp, String host, String uri, HttpMethod method, String contentType, HttpHeaders headers, FullHttpRequest fullHttpRequest) {
-        this.id = LocalDateTime.now().format(DateTimeFormatter.ofPattern(DATE_DEFAULT_FORMATTER)) + "---" + UUID.randomUUID();
-        this.serviceDefinition = serviceDefinition;
-        this.beginTime = System.currentTimeMillis();
-        this.charset = charset;
-        this.clientIp = clientIp;
-        this.host = host;
-        this.uri = uri;
-        this.method = method;
-        this.contentType = contentType;
-        this.headers = headers;
-        this.fullHttpRequest = fullHttpRequest;
-
-        this.queryStringDecoder = new QueryStringDecoder(uri, charset);
-        this.path = queryStringDecoder.path();
-        this.modifyHost = host;
-        this.modifyPath = path;
-        this.modifyScheme = HttpConstant.HTTP_PREFIX_SEPARATOR;
-
-        this.requestBuilder = new RequestBuilder();
-        this.requestBuilder.setMethod(method.name());
-        this.requestBuilder.setHeaders(headers);
-        this.requestBuilder.setQueryParams(queryStringDecoder.parameters());
-        ByteBuf contentBuffer = fullHttpRequest.content();
-        if (Objects.nonNull(contentBuffer)) {
-            this.requestBuilder.setBody(contentBuffer.nioBuffer());
-            contentBuffer.release();
+    /**
+     * 客户端原始的 Accept-Encoding，关闭压缩透传时转发给下游前会被移除，这里保留用于边缘压缩
+     */
+    private String acceptEncoding;
+
+    private GatewayRequest(ObjectPool.Handle<GatewayRequest> handle) {
+        this.handle = handle;
+    }
+
+    public static GatewayRequest newInstance(CharSequence id, ServiceDefinition serviceDefinition, InetSocketAddress remoteAddress, boolean secure, String host, String uri, HttpMethod method, HttpHeaders headers, FullHttpRequest fullHttpRequest) {
+        GatewayRequest request = RECYCLER.get();
+        request.id = id;
+        request.serviceDefinition = serviceDefinition;
+        request.beginTime = System.currentTimeMillis();
+        request.remoteAddress = remoteAddress;
+        request.secure = secure;
+        request.host = host;
+        request.uri = uri;
+        request.method = method;
+        request.headers = headers;
+        request.fullHttpRequest = fullHttpRequest;
+
+        // 只切分 path 和查询串，不做解码
+        int queryIndex = uri.indexOf('?');
+        request.path = queryIndex < 0 ? uri : uri.substring(0, queryIndex);
+        request.rawQuery = queryIndex < 0 || queryIndex == uri.length() - 1 ? null : uri.substring(queryIndex + 1);
+        request.modifyHost = host;
+        request.modifyPath = request.path;
+        request.modifyScheme = HttpConstant.HTTP_PREFIX_SEPARATOR;
+        return request;
+    }
+
+    /**
+     * 清空所有字段后放回对象池，调用后不能再持有该对象
+     */
+    public void recycle() {
+        id = null;
+        serviceDefinition = null;
+        beginTime = 0;
+        charset = null;
+        clientIp = null;
+        remoteAddress = null;
+        secure = false;
+        host = null;
+        path = null;
+        rawQuery = null;
+        uri = null;
+        method = null;
+        contentType = null;
+        headers = null;
+        queryStringDecoder = null;
+        fullHttpRequest = null;
+        body = null;
+        cookieMap = null;
+        postParameters = null;
+        modifyScheme = null;
+        modifyHost = null;
+        modifyPath = null;
+        isGray = false;
+        acceptEncoding = null;
+        handle.recycle(this);
+    }
+
+    public Charset getCharset() {
+        if (charset == null) {
+            charset = HttpUtil.getCharset(fullHttpRequest, StandardCharsets.UTF_8);
+        }
+        return charset;
+    }
+
+    public String getContentType() {
+        if (contentType == null) {
+            CharSequence mimeType = HttpUtil.getMimeType(fullHttpRequest);
+            contentType = mimeType == null ? null : mimeType.toString();
+        }
+        return contentType;
+    }
+
+    /**
+     * 优先取 X-Forwarded-For 中的第一个地址，没有时取连接的远端地址
+     */
+    public String getClientIp() {
+        if (clientIp == null) {
+            String xForwardedValue = headers.get(HTTP_FORWARD_SEPARATOR);
+            if (StringUtils.isNotEmpty(xForwardedValue)) {
+                int index = xForwardedValue.indexOf(',');
+                String first = (index < 0 ? xForwardedValue : xForwardedValue.substring(0, index)).trim();
+                if (StringUtils.isNotBlank(first)) {
+                    clientIp = first;
+                }
+            }
+            if (clientIp == null) {
+                clientIp = remoteAddress.getAddress().getHostAddress();
+            }
+        }
+        return clientIp;
+    }
+
+    public QueryStringDecoder getQueryStringDecoder() {
+        if (queryStringDecoder == null) {
+            queryStringDecoder = new QueryStringDecoder(uri, getCharset());
         }
+        return queryStringDecoder;
     }
 
+    /**
+     * 获取查询参数
+     */
+    public List<String> getQueryParameter(String name) {
+        return getQueryStringDecoder().parameters().get(name);
+    }
 
     /**
      * 获取Cookie
@@ -172,15 +276,10 @@ public class GatewayRequest {
             }
             Set<io.netty.handler.codec.http.cookie.Cookie> cookies = ServerCookieDecoder.STRICT.decode(cookieStr);
             for (io.netty.handler.codec.http.cookie.Cookie cookie : cookies) {
-                cookieMap.put(name, cookie);
+                cookieMap.put(cookie.name(), cookie);
             }
         }
         return cookieMap.get(name);
     }
 
-    public Request buildUrl() {
-        return requestBuilder.setUrl(modifyScheme + modifyHost + modifyPath).build();
-    }
-
-
 }
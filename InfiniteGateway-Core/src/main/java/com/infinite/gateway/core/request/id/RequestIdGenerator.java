@@ -0,0 +1,27 @@
+package com.infinite.gateway.core.request.id;
+
+import com.infinite.gateway.config.config.Config;
+
+/**
+ * 请求ID生成器，通过 SPI 扩展，配置项 requestIdGenerator 指定使用哪个实现
+ */
+public interface RequestIdGenerator {
+
+    /**
+     * 初始化
+     *
+     * @param config 网关静态配置
+     */
+    default void init(Config config) {
+    }
+
+    /**
+     * 生成请求ID
+     *
+     * @return 请求ID，建议直接返回 AsciiString，写入请求头和响应头时不需要再编码
+     */
+    CharSequence generate();
+
+    String mark();
+
+}
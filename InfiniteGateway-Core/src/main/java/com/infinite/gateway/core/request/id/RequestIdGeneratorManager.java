@@ -0,0 +1,61 @@
+package com.infinite.gateway.core.request.id;
+
+import com.infinite.gateway.config.config.Config;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ServiceLoader;
+
+/**
+ * 请求ID生成器管理，按配置从 SPI 实现中选择，找不到时使用 {@link TimeOrderedRequestIdGenerator}
+ */
+@Slf4j
+public class RequestIdGeneratorManager {
+
+    private static final RequestIdGeneratorManager INSTANCE = new RequestIdGeneratorManager();
+
+    /**
+     * 单个请求ID的最大长度，客户端带过来的ID超过这个长度时重新生成
+     */
+    private static final int MAX_REQUEST_ID_LENGTH = 128;
+
+    private volatile RequestIdGenerator generator = new TimeOrderedRequestIdGenerator();
+
+    private RequestIdGeneratorManager() {
+    }
+
+    public static RequestIdGeneratorManager getInstance() {
+        return INSTANCE;
+    }
+
+    public void init(Config config) {
+        RequestIdGenerator selected = null;
+        for (RequestIdGenerator requestIdGenerator : ServiceLoader.load(RequestIdGenerator.class)) {
+            if (requestIdGenerator.mark().equals(config.getRequestIdGenerator())) {
+                selected = requestIdGenerator;
+                break;
+            }
+        }
+        if (selected == null) {
+            log.warn("not found request id generator: {}, use default", config.getRequestIdGenerator());
+            selected = new TimeOrderedRequestIdGenerator();
+        }
+        selected.init(config);
+        generator = selected;
+        log.info("RequestIdGenerator initialized: {}", selected.mark());
+    }
+
+    public CharSequence generate() {
+        return generator.generate();
+    }
+
+    /**
+     * 优先沿用客户端或上一跳带过来的请求ID，没有或不合法时生成新的
+     */
+    public CharSequence resolve(CharSequence incoming) {
+        if (incoming != null && incoming.length() > 0 && incoming.length() <= MAX_REQUEST_ID_LENGTH) {
+            return incoming;
+        }
+        return generate();
+    }
+
+}
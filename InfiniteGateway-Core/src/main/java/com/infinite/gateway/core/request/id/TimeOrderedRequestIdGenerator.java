@@ -0,0 +1,72 @@
+package com.infinite.gateway.core.request.id;
+
+import com.infinite.gateway.common.util.NetUtil;
+import com.infinite.gateway.config.config.Config;
+import io.netty.util.AsciiString;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.infinite.gateway.common.constant.ConfigConstant.TIME_ORDERED_REQUEST_ID_GENERATOR;
+
+/**
+ * 按时间有序的 128 位请求ID，编码为 32 位十六进制字符
+ *
+ * 高 64 位：48 位毫秒时间戳 + 16 位节点号，保证按字典序即按时间排序
+ * 低 64 位：24 位线程号 + 40 位线程内自增序号
+ *
+ * 线程号在线程第一次生成ID时全局递增分配，线程内序号不需要任何同步，不依赖 SecureRandom
+ */
+@Slf4j
+public class TimeOrderedRequestIdGenerator implements RequestIdGenerator {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private static final long SEQUENCE_MASK = (1L << 40) - 1;
+
+    private static final AtomicInteger THREAD_INDEX = new AtomicInteger();
+
+    private static final ThreadLocal<Sequence> SEQUENCE = ThreadLocal.withInitial(Sequence::new);
+
+    private long nodeId;
+
+    @Override
+    public void init(Config config) {
+        int configNodeId = config.getRequestIdNodeId();
+        // 未指定节点号时由本机 IP + 端口计算
+        nodeId = (configNodeId >= 0 ? configNodeId : (NetUtil.getLocalIp() + ":" + config.getPort()).hashCode()) & 0xFFFF;
+        log.info("TimeOrderedRequestIdGenerator initialized with nodeId={}", nodeId);
+    }
+
+    @Override
+    public CharSequence generate() {
+        Sequence sequence = SEQUENCE.get();
+        long high = (System.currentTimeMillis() << 16) | nodeId;
+        long low = sequence.threadIndex | (sequence.next++ & SEQUENCE_MASK);
+        byte[] bytes = new byte[32];
+        writeHex(bytes, 0, high);
+        writeHex(bytes, 16, low);
+        return new AsciiString(bytes, false);
+    }
+
+    private static void writeHex(byte[] bytes, int offset, long value) {
+        for (int i = offset + 15; i >= offset; i--) {
+            bytes[i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+
+    @Override
+    public String mark() {
+        return TIME_ORDERED_REQUEST_ID_GENERATOR;
+    }
+
+    private static class Sequence {
+
+        private final long threadIndex = (THREAD_INDEX.getAndIncrement() & 0xFFFFFFL) << 40;
+
+        private long next;
+
+    }
+
+}
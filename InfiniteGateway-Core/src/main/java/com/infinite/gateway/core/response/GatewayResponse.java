@@ -2,6 +2,8 @@ package com.infinite.gateway.core.response;
 
 
 import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.EmptyHttpHeaders;
+import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import lombok.Data;
@@ -11,9 +13,9 @@ import org.asynchttpclient.Response;
 @Data
 public class GatewayResponse {
     /**
-     * 响应头
+     * 响应头，需要添加时才创建
      */
-    private HttpHeaders responseHeaders = new DefaultHttpHeaders();
+    private HttpHeaders responseHeaders = EmptyHttpHeaders.INSTANCE;
     /**
      * 响应内容
      */
@@ -27,10 +29,18 @@ public class GatewayResponse {
      */
     private Response response;
 
+    /**
+     * 网关自己生成的固定响应（错误码、降级等）的预编码模板，只读且不会被释放，写回时使用 retainedDuplicate
+     */
+    private FullHttpResponse preEncodedResponse;
+
     /**
      * 设置响应头信息
      */
     public void addHeader(CharSequence key, CharSequence val) {
+        if (responseHeaders == EmptyHttpHeaders.INSTANCE) {
+            responseHeaders = new DefaultHttpHeaders();
+        }
         responseHeaders.add(key, val);
     }
 
@@ -0,0 +1,59 @@
+package com.infinite.gateway.core.filter.gary.strategy;
+
+import com.infinite.gateway.common.pojo.RouteDefinition;
+import com.infinite.gateway.common.pojo.ServiceInstance;
+import com.infinite.gateway.core.manager.ServiceInstanceView;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GrayBucketsTest {
+
+    private static final int KEYS = 100_000;
+
+    private final RouteDefinition.GrayFilterConfig config = new RouteDefinition.GrayFilterConfig();
+
+    @Test
+    public void grayUsersStayGrayWhenThresholdRises() {
+        config.setMaxGrayThreshold(1);
+        ServiceInstanceView small = view(0.05);
+        ServiceInstanceView large = view(0.2);
+        int smallGray = 0;
+        int largeGray = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "user-" + i;
+            boolean graySmall = GrayBuckets.isGray(key, small, config);
+            boolean grayLarge = GrayBuckets.isGray(key, large, config);
+            assertTrue(key, !graySmall || grayLarge);
+            smallGray += graySmall ? 1 : 0;
+            largeGray += grayLarge ? 1 : 0;
+        }
+        assertEquals(KEYS * 0.05, smallGray, KEYS * 0.005);
+        assertEquals(KEYS * 0.2, largeGray, KEYS * 0.005);
+    }
+
+    @Test
+    public void maxGrayThresholdCapsGrayTraffic() {
+        config.setMaxGrayThreshold(0.1);
+        ServiceInstanceView view = view(0.5);
+        int gray = 0;
+        for (int i = 0; i < KEYS; i++) {
+            gray += GrayBuckets.isGray("user-" + i, view, config) ? 1 : 0;
+        }
+        assertEquals(KEYS * 0.1, gray, KEYS * 0.005);
+    }
+
+    private static ServiceInstanceView view(double threshold) {
+        ServiceInstance normal = new ServiceInstance();
+        normal.setInstanceId("10.0.0.1:8080");
+        ServiceInstance gray = new ServiceInstance();
+        gray.setInstanceId("10.0.0.2:8080");
+        gray.setGray(true);
+        gray.setThreshold(threshold);
+        return ServiceInstanceView.of("user-service", List.of(normal, gray));
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.infinite.gateway.core.filter.loadbalance.strategy;
+
+import com.infinite.gateway.common.pojo.ServiceInstance;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MaglevTableTest {
+
+    private static final int KEYS = 200_000;
+
+    @Test
+    public void tableIsBalanced() {
+        List<ServiceInstance> instances = instances(5, 1);
+        Map<String, Integer> counts = count(new MaglevLoadBalanceStrategy.MaglevTable("user-service", instances));
+        assertEquals(5, counts.size());
+        for (int count : counts.values()) {
+            assertEquals(KEYS / 5, count, KEYS / 5 * 0.03);
+        }
+    }
+
+    @Test
+    public void tableFollowsWeights() {
+        List<ServiceInstance> instances = instances(2, 1);
+        instances.get(0).setWeight(3);
+        Map<String, Integer> counts = count(new MaglevLoadBalanceStrategy.MaglevTable("user-service", instances));
+        assertEquals(KEYS * 3 / 4, counts.get("10.0.0.0:8080"), KEYS * 0.01);
+        assertEquals(KEYS / 4, counts.get("10.0.0.1:8080"), KEYS * 0.01);
+    }
+
+    @Test
+    public void removingOneInstanceOnlyMovesItsKeys() {
+        List<ServiceInstance> instances = instances(10, 1);
+        MaglevLoadBalanceStrategy.MaglevTable before = new MaglevLoadBalanceStrategy.MaglevTable("user-service", instances);
+        ServiceInstance removed = instances.remove(3);
+        MaglevLoadBalanceStrategy.MaglevTable after = new MaglevLoadBalanceStrategy.MaglevTable("user-service", instances);
+        int kept = 0;
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "client-" + i;
+            ServiceInstance previous = before.get(key);
+            if (previous == removed) {
+                continue;
+            }
+            kept++;
+            if (after.get(key) != previous) {
+                moved++;
+            }
+        }
+        // 理想情况下只有被移除实例上的键迁移，Maglev 允许少量额外迁移
+        assertTrue("moved " + moved + " of " + kept, moved < kept * 0.05);
+    }
+
+    private static Map<String, Integer> count(MaglevLoadBalanceStrategy.MaglevTable table) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(table.get("client-" + i).getInstanceId(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private static List<ServiceInstance> instances(int size, int weight) {
+        List<ServiceInstance> instances = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            ServiceInstance instance = new ServiceInstance();
+            instance.setServiceName("user-service");
+            instance.setInstanceId("10.0.0." + i + ":8080");
+            instance.setWeight(weight);
+            instances.add(instance);
+        }
+        return instances;
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.infinite.gateway.core.filter.loadbalance.strategy;
+
+import com.infinite.gateway.common.pojo.RouteDefinition;
+import com.infinite.gateway.common.pojo.ServiceInstance;
+import com.infinite.gateway.core.context.GatewayContext;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class WeightLoadBalanceStrategyTest {
+
+    private final RouteDefinition.LoadBalanceFilterConfig config = new RouteDefinition.LoadBalanceFilterConfig();
+
+    @Test
+    public void roundFollowsWeights() {
+        List<ServiceInstance> instances = List.of(instance("a", 5), instance("b", 1), instance("c", 1));
+        GatewayContext context = context(1);
+        WeightLoadBalanceStrategy strategy = new WeightLoadBalanceStrategy();
+        for (int round = 0; round < 3; round++) {
+            Map<String, Integer> counts = new HashMap<>();
+            for (int i = 0; i < 7; i++) {
+                counts.merge(strategy.chooseInstance(context, instances, config).getInstanceId(), 1, Integer::sum);
+            }
+            assertEquals(5, (int) counts.get("a"));
+            assertEquals(1, (int) counts.get("b"));
+            assertEquals(1, (int) counts.get("c"));
+        }
+    }
+
+    @Test
+    public void heavyInstanceIsInterleaved() {
+        List<ServiceInstance> instances = List.of(instance("a", 5), instance("b", 1), instance("c", 1));
+        GatewayContext context = context(1);
+        WeightLoadBalanceStrategy strategy = new WeightLoadBalanceStrategy();
+        StringBuilder sequence = new StringBuilder();
+        for (int i = 0; i < 7; i++) {
+            sequence.append(strategy.chooseInstance(context, instances, config).getInstanceId());
+        }
+        // nginx 平滑加权轮询的一轮序列
+        assertEquals("aabacaa", sequence.toString());
+    }
+
+    @Test
+    public void largeWeightsKeepProportionAndSpread() {
+        List<ServiceInstance> instances = List.of(
+                instance("a", 50000), instance("b", 50000), instance("c", 5000));
+        GatewayContext context = context(1);
+        WeightLoadBalanceStrategy strategy = new WeightLoadBalanceStrategy();
+        int total = 210_000;
+        Map<String, Integer> counts = new HashMap<>();
+        int lastC = -1;
+        int maxGap = 0;
+        for (int i = 0; i < total; i++) {
+            String id = strategy.chooseInstance(context, instances, config).getInstanceId();
+            counts.merge(id, 1, Integer::sum);
+            if (id.equals("c")) {
+                if (lastC >= 0) {
+                    maxGap = Math.max(maxGap, i - lastC);
+                }
+                lastC = i;
+            }
+        }
+        assertEquals(total * 10 / 21, counts.get("a"), total * 0.001);
+        assertEquals(total * 10 / 21, counts.get("b"), total * 0.001);
+        assertEquals(total / 21, counts.get("c"), total * 0.001);
+        // 权重较小的实例均匀穿插，不会集中在序列的某一段，理想间隔约为 21
+        assertTrue("max gap " + maxGap, maxGap <= 23);
+    }
+
+    @Test
+    public void staleListDoesNotReplaceNewerSchedule() {
+        List<ServiceInstance> older = List.of(instance("a", 1), instance("b", 1));
+        List<ServiceInstance> newer = List.of(instance("a", 1), instance("c", 1));
+        WeightLoadBalanceStrategy strategy = new WeightLoadBalanceStrategy();
+        strategy.chooseInstance(context(2), newer, config);
+        for (int i = 0; i < 10; i++) {
+            assertNotEquals("b", strategy.chooseInstance(context(1), older, config).getInstanceId());
+        }
+        // 更新的列表仍然可以替换
+        List<ServiceInstance> newest = List.of(instance("d", 1));
+        assertEquals("d", strategy.chooseInstance(context(3), newest, config).getInstanceId());
+    }
+
+    private static GatewayContext context(long version) {
+        GatewayContext context = GatewayContext.newInstance(null, null, null, false);
+        context.setLoadBalanceKey("user-service");
+        context.setInstanceVersion(version);
+        return context;
+    }
+
+    private static ServiceInstance instance(String id, int weight) {
+        ServiceInstance instance = new ServiceInstance();
+        instance.setServiceName("user-service");
+        instance.setInstanceId(id);
+        instance.setWeight(weight);
+        return instance;
+    }
+
+}
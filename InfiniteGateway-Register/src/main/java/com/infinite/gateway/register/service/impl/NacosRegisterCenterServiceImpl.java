@@ -2,6 +2,7 @@ package com.infinite.gateway.register.service.impl;
 
 import cn.hutool.core.bean.BeanUtil;
 import com.alibaba.fastjson.JSON;
+import com.alibaba.nacos.api.common.Constants;
 import com.alibaba.nacos.api.exception.NacosException;
 import com.alibaba.nacos.api.naming.NamingFactory;
 import com.alibaba.nacos.api.naming.NamingMaintainFactory;
@@ -16,6 +17,7 @@ import com.alibaba.nacos.api.naming.pojo.ServiceInfo;
 import com.alibaba.nacos.common.executor.NameThreadFactory;
 import com.alibaba.nacos.common.utils.CollectionUtils;
 import com.infinite.gateway.common.constant.GatewayConst;
+import com.infinite.gateway.common.constant.RegisterCenterConstant;
 import com.infinite.gateway.common.pojo.ServiceDefinition;
 import com.infinite.gateway.common.pojo.ServiceInstance;
 import com.infinite.gateway.config.config.Config;
@@ -141,6 +143,38 @@ public class NacosRegisterCenterServiceImpl implements RegisterCenterService {
         }
     }
 
+    /**
+     * 从实例元数据中取可用区和地域，没有配置可用区时使用 nacos 的集群名（默认集群除外）
+     */
+    private void fillLocality(ServiceInstance serviceInstance, Instance instance) {
+        Map<String, String> metadata = instance.getMetadata();
+        String zone = metadata == null ? null : metadata.get(RegisterCenterConstant.METADATA_ZONE_KEY);
+        if (zone == null && instance.getClusterName() != null && !Constants.DEFAULT_CLUSTER_NAME.equals(instance.getClusterName())) {
+            zone = instance.getClusterName();
+        }
+        serviceInstance.setZone(zone);
+        serviceInstance.setRegion(metadata == null ? null : metadata.get(RegisterCenterConstant.METADATA_REGION_KEY));
+    }
+
+    /**
+     * 从实例元数据中取灰度标记和灰度流量比例
+     */
+    private void fillGray(ServiceInstance serviceInstance, Instance instance) {
+        Map<String, String> metadata = instance.getMetadata();
+        if (metadata == null) {
+            return;
+        }
+        serviceInstance.setGray(Boolean.parseBoolean(metadata.get(RegisterCenterConstant.METADATA_GRAY_KEY)));
+        String threshold = metadata.get(RegisterCenterConstant.METADATA_GRAY_THRESHOLD_KEY);
+        if (threshold != null) {
+            try {
+                serviceInstance.setThreshold(Double.parseDouble(threshold.trim()));
+            } catch (NumberFormatException e) {
+                log.warn("invalid gray threshold {} of instance {}", threshold, serviceInstance.getInstanceId());
+            }
+        }
+    }
+
     /**
      * 实现对nacos事件的监听器 这个事件监听器会在Nacos发生事件变化的时候进行回调
      * NamingEvent 是一个事件对象，用于表示与服务命名空间（Naming）相关的事件。
@@ -176,6 +210,8 @@ public class NacosRegisterCenterServiceImpl implements RegisterCenterService {
                         if (instance.getServiceName().contains("@@")) {
                             serviceInstance.setServiceName(instance.getServiceName().split("@@")[1]);
                         }
+                        fillLocality(serviceInstance, instance);
+                        fillGray(serviceInstance, instance);
                         set.add(serviceInstance);
                     }
                     //调用我们自己的订阅监听器
@@ -0,0 +1,82 @@
+#!/usr/bin/env bash
+# 对比两个版本（基线、候选）的单请求内存分配量
+#
+# 每个版本在独立的 git worktree 中打包、启动，预热后在 wrk 压测期间开启 JFR，
+# 按 jdk.ThreadAllocationStatistics 中各线程累计分配量的增量求和，再除以 wrk 的请求数
+#
+# 前置条件同 transport-bench.sh：Nacos 已发布路由配置，已启动 InfiniteGateway-Test-User，已安装 wrk
+#
+# 用法：bench/alloc-bench.sh <baseline-ref> <candidate-ref>
+# 可以通过环境变量调整：URL、THREADS、CONNECTIONS、WARMUP（秒）、DURATION（秒）、HEAP、OUT
+set -euo pipefail
+
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+. "$ROOT/bench/lib.sh"
+
+[ $# -eq 2 ] || { echo "usage: $0 <baseline-ref> <candidate-ref>" >&2; exit 1; }
+BASELINE=$1
+CANDIDATE=$2
+URL=${URL:-http://127.0.0.1:10011/user/ping1}
+THREADS=${THREADS:-8}
+CONNECTIONS=${CONNECTIONS:-256}
+WARMUP=${WARMUP:-30}
+DURATION=${DURATION:-30}
+HEAP=${HEAP:-1g}
+OUT=${OUT:-$ROOT/bench/results/alloc-$(date +%Y%m%d-%H%M%S).md}
+
+command -v wrk > /dev/null || { echo "wrk is required" >&2; exit 1; }
+WORK=$(mktemp -d)
+cleanup() {
+  stop_gateway
+  for dir in "$WORK"/src-*; do
+    [ -d "$dir" ] && git -C "$ROOT" worktree remove --force "$dir"
+  done
+  rm -rf "$WORK"
+}
+trap cleanup EXIT
+
+mkdir -p "$(dirname "$OUT")"
+{
+  echo "# allocation benchmark $(date '+%Y-%m-%d %H:%M:%S')"
+  echo
+  echo "java: $(java -version 2>&1 | head -1), heap: $HEAP, wrk: -t$THREADS -c$CONNECTIONS -d${DURATION}s, url: $URL"
+  echo
+  echo "| ref | commit | requests | allocated MB | MB/s | bytes/request |"
+  echo "|-----|--------|----------|--------------|------|---------------|"
+} > "$OUT"
+
+index=0
+for ref in "$BASELINE" "$CANDIDATE"; do
+  index=$((index + 1))
+  src="$WORK/src-$index"
+  git -C "$ROOT" worktree add --detach "$src" "$ref" > /dev/null
+  jar=$(gateway_jar "$src")
+  mkdir -p "$WORK/conf-$index"
+  cp "$src/InfiniteGateway-Startup/src/main/resources/application.yaml" "$WORK/conf-$index/"
+  start_gateway "$jar" "$WORK/conf-$index" "$WORK/gateway-$index.log" "$URL" -Xms"$HEAP" -Xmx"$HEAP"
+
+  wrk -t"$THREADS" -c"$CONNECTIONS" -d"${WARMUP}s" "$URL" > /dev/null
+  jcmd "$GATEWAY_PID" JFR.start name=alloc settings=profile > /dev/null
+  wrk -t"$THREADS" -c"$CONNECTIONS" -d"${DURATION}s" "$URL" > "$WORK/wrk-$index.txt"
+  jcmd "$GATEWAY_PID" JFR.stop name=alloc filename="$WORK/alloc-$index.jfr" > /dev/null
+  stop_gateway
+
+  # 录制开始和结束时各有一次线程分配统计，取每个线程的增量
+  allocated=$(jfr print --json --events jdk.ThreadAllocationStatistics "$WORK/alloc-$index.jfr" | python3 -c '
+import json, sys
+events = json.load(sys.stdin)["recording"]["events"]
+first, last = {}, {}
+for event in events:
+    values = event["values"]
+    tid = values["thread"]["javaThreadId"] if values.get("thread") else None
+    first.setdefault(tid, values["allocated"])
+    last[tid] = values["allocated"]
+print(sum(last[tid] - first[tid] for tid in last))
+')
+  requests=$(wrk_requests "$WORK/wrk-$index.txt")
+  commit=$(git -C "$src" rev-parse --short HEAD)
+  awk -v ref="$ref" -v commit="$commit" -v requests="$requests" -v bytes="$allocated" -v d="$DURATION" \
+      'BEGIN { printf "| %s | %s | %d | %.1f | %.1f | %d |\n", ref, commit, requests, bytes / 1048576, bytes / 1048576 / d, bytes / requests }' >> "$OUT"
+done
+
+cat "$OUT"
@@ -0,0 +1,55 @@
+#!/usr/bin/env bash
+# 压测脚本的公共函数，由 transport-bench.sh / alloc-bench.sh 引用
+
+# 网关打包后的可执行 jar，不存在时先打包
+# $1: 源码根目录
+gateway_jar() {
+  local root=$1 jar
+  jar=$(ls "$root"/InfiniteGateway-Startup/target/InfiniteGateway-Startup-*-jar-with-dependencies.jar 2>/dev/null | head -1)
+  if [ -z "$jar" ]; then
+    (cd "$root" && mvn -B -q package -DskipTests) >&2
+    jar=$(ls "$root"/InfiniteGateway-Startup/target/InfiniteGateway-Startup-*-jar-with-dependencies.jar | head -1)
+  fi
+  echo "$jar"
+}
+
+# 在 application.yaml 的 infinite.gateway 下插入额外配置，写到 $3/application.yaml
+# $1: 源 application.yaml，$2: 要插入的 yaml 片段（已按 4 空格缩进），$3: 输出目录
+override_config() {
+  awk -v extra="$2" '{ print } /^  gateway:/ && !done { print extra; done = 1 }' "$1" > "$3/application.yaml"
+}
+
+# 启动网关并等待 URL 可以访问，配置目录放在 classpath 最前面覆盖 jar 内的 application.yaml
+# $1: jar，$2: 配置目录，$3: 日志文件，$4: 探测 URL，其余参数作为 JVM 参数
+# 启动后的进程号写到 GATEWAY_PID
+start_gateway() {
+  local jar=$1 conf=$2 log=$3 url=$4
+  shift 4
+  java "$@" -cp "$conf:$jar" com.infinite.gateway.startup.Main > "$log" 2>&1 &
+  GATEWAY_PID=$!
+  for _ in $(seq 1 60); do
+    if curl -s -o /dev/null "$url"; then
+      return 0
+    fi
+    if ! kill -0 "$GATEWAY_PID" 2>/dev/null; then
+      echo "gateway exited during startup, see $log" >&2
+      return 1
+    fi
+    sleep 1
+  done
+  echo "gateway not ready after 60s, see $log" >&2
+  return 1
+}
+
+stop_gateway() {
+  if [ -n "${GATEWAY_PID:-}" ] && kill -0 "$GATEWAY_PID" 2>/dev/null; then
+    kill "$GATEWAY_PID"
+    wait "$GATEWAY_PID" 2>/dev/null || true
+  fi
+  GATEWAY_PID=
+}
+
+# 从 wrk 输出中取总请求数
+wrk_requests() {
+  awk '/requests in/ { print $1 }' "$1"
+}
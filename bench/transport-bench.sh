@@ -0,0 +1,67 @@
+#!/usr/bin/env bash
+# 同一台机器、同一后端实例下对比 io_uring / epoll / nio 三种服务端传输层
+#
+# 前置条件：
+#   1. application.yaml 中配置的 Nacos 可用，并已发布 README 中的路由配置
+#   2. 已启动一个 InfiniteGateway-Test-User 实例
+#   3. 已安装 wrk；安装了 perf 时额外统计每秒系统调用次数
+#
+# 用法：bench/transport-bench.sh
+# 可以通过环境变量调整：URL、TRANSPORTS、THREADS、CONNECTIONS、WARMUP（秒）、DURATION（秒）、OUT
+set -euo pipefail
+
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+. "$ROOT/bench/lib.sh"
+
+URL=${URL:-http://127.0.0.1:10011/user/ping1}
+TRANSPORTS=${TRANSPORTS:-"IO_URING EPOLL NIO"}
+THREADS=${THREADS:-8}
+CONNECTIONS=${CONNECTIONS:-256}
+WARMUP=${WARMUP:-30}
+DURATION=${DURATION:-30}
+OUT=${OUT:-$ROOT/bench/results/transport-$(date +%Y%m%d-%H%M%S).md}
+
+command -v wrk > /dev/null || { echo "wrk is required" >&2; exit 1; }
+JAR=$(gateway_jar "$ROOT")
+WORK=$(mktemp -d)
+trap 'stop_gateway; rm -rf "$WORK"' EXIT
+
+mkdir -p "$(dirname "$OUT")"
+{
+  echo "# transport benchmark $(date '+%Y-%m-%d %H:%M:%S')"
+  echo
+  echo "kernel: $(uname -r), cpus: $(nproc), wrk: -t$THREADS -c$CONNECTIONS -d${DURATION}s, url: $URL"
+  echo
+  echo "| transport | actual | Requests/sec | P50 | P99 | syscalls/sec |"
+  echo "|-----------|--------|--------------|-----|-----|--------------|"
+} > "$OUT"
+
+for transport in $TRANSPORTS; do
+  override_config "$ROOT/InfiniteGateway-Startup/src/main/resources/application.yaml" \
+      "    netty:
+      transport: $transport" "$WORK"
+  start_gateway "$JAR" "$WORK" "$WORK/gateway-$transport.log" "$URL"
+  # 回退时实际使用的传输层以启动日志为准
+  actual=$(grep -o 'transport=[A-Z_]*' "$WORK/gateway-$transport.log" | head -1 | cut -d= -f2)
+
+  wrk -t"$THREADS" -c"$CONNECTIONS" -d"${WARMUP}s" "$URL" > /dev/null
+  syscalls=-
+  if command -v perf > /dev/null; then
+    perf stat -x, -e raw_syscalls:sys_enter -p "$GATEWAY_PID" -o "$WORK/perf-$transport.csv" -- sleep "$DURATION" &
+    perf_pid=$!
+  fi
+  wrk -t"$THREADS" -c"$CONNECTIONS" -d"${DURATION}s" --latency "$URL" > "$WORK/wrk-$transport.txt"
+  if [ -n "${perf_pid:-}" ]; then
+    wait "$perf_pid" || true
+    syscalls=$(awk -F, -v d="$DURATION" '/raw_syscalls/ { printf "%d", $1 / d }' "$WORK/perf-$transport.csv")
+    perf_pid=
+  fi
+
+  rps=$(awk '/Requests\/sec/ { print $2 }' "$WORK/wrk-$transport.txt")
+  p50=$(awk '$1 == "50%" { print $2 }' "$WORK/wrk-$transport.txt")
+  p99=$(awk '$1 == "99%" { print $2 }' "$WORK/wrk-$transport.txt")
+  echo "| $transport | ${actual:--} | $rps | $p50 | $p99 | $syscalls |" >> "$OUT"
+  stop_gateway
+done
+
+cat "$OUT"